@@ -0,0 +1,56 @@
+package planner.benchmark;
+
+import planner.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks Allocator.allocate and AllocationEngine.allocate for increasing
+ * numbers of events and venues.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class AllocationBenchmark {
+
+    // the seed used to generate the benchmark data
+    private final static long SEED = 2017;
+    // the number of corridors used by the generated venues
+    private final static int CORRIDORS = 12;
+
+    // the number of events allocated, and the number of venues (each
+    // allocation has two and a half venues for every event)
+    @Param({ "4", "8", "12", "16" })
+    private int events;
+
+    // the events to allocate, and the venues to allocate them to
+    private List<Event> eventList;
+    private List<Venue> venueList;
+    // the engine, created once outside the operation measured
+    private AllocationEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData data = new BenchmarkData(SEED, CORRIDORS);
+        eventList = data.events(events);
+        venueList = data.venues(events * 5 / 2);
+        engine = new AllocationEngine(venueList);
+    }
+
+    @Benchmark
+    public Map<Event, Venue> allocator() {
+        return Allocator.allocate(eventList, venueList);
+    }
+
+    @Benchmark
+    public Map<Event, Venue> allocationEngine() {
+        return engine.allocate(eventList);
+    }
+
+}
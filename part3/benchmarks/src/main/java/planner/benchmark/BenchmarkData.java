@@ -0,0 +1,146 @@
+package planner.benchmark;
+
+import planner.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Generates random (but reproducible) venues, events and venue files for the
+ * planner benchmarks.
+ */
+public class BenchmarkData {
+
+    // Correct line separator for the venue files
+    private final static String LINE_SEPARATOR = System.getProperty(
+            "line.separator");
+
+    // the source of random numbers
+    private Random random;
+    // the corridors that venues may generate traffic on
+    private List<Corridor> corridors;
+
+    /**
+     * Creates a generator of benchmark data with the given number of
+     * corridors, seeded with the given seed.
+     * 
+     * @param seed
+     *            the seed for the random numbers
+     * @param corridorCount
+     *            the number of corridors that venues may use
+     * @throws IllegalArgumentException
+     *             if corridorCount is less than or equal to zero
+     */
+    public BenchmarkData(long seed, int corridorCount) {
+        if (corridorCount <= 0) {
+            throw new IllegalArgumentException(
+                    "The number of corridors must be greater than 0.");
+        }
+        random = new Random(seed);
+        corridors = new ArrayList<>();
+        for (int i = 0; i < corridorCount; i++) {
+            corridors.add(new Corridor(new Location("Location " + i),
+                    new Location("Location " + (i + 1)), 200 + random
+                            .nextInt(800)));
+        }
+    }
+
+    /**
+     * Returns the corridors that the generated venues may use.
+     * 
+     * @return the corridors that the generated venues may use
+     */
+    public List<Corridor> getCorridors() {
+        return new ArrayList<>(corridors);
+    }
+
+    /**
+     * Returns a list of count distinct venues, each generating traffic on a
+     * few of the corridors.
+     * 
+     * @param count
+     *            the number of venues to generate
+     * @return the venues generated
+     */
+    public List<Venue> venues(int count) {
+        List<Venue> venues = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int capacity = 100 + random.nextInt(400);
+            venues.add(new Venue("Venue " + i, capacity, traffic(capacity)));
+        }
+        return venues;
+    }
+
+    /**
+     * Returns a list of count distinct events.
+     * 
+     * @param count
+     *            the number of events to generate
+     * @return the events generated
+     */
+    public List<Event> events(int count) {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new Event("Event " + i, 20 + random.nextInt(200)));
+        }
+        return events;
+    }
+
+    /**
+     * Returns traffic on a few of the corridors, where the traffic on each
+     * corridor is at most maximum.
+     * 
+     * @param maximum
+     *            the maximum traffic on any corridor
+     * @return the traffic generated
+     */
+    public Traffic traffic(int maximum) {
+        Traffic traffic = new Traffic();
+        for (Corridor corridor : corridors) {
+            if (random.nextInt(4) == 0) {
+                traffic.updateTraffic(corridor, 1 + random.nextInt(Math.min(
+                        maximum, corridor.getCapacity() / 4)));
+            }
+        }
+        return traffic;
+    }
+
+    /**
+     * Writes a correctly formatted venue file of (about) the given size.
+     * 
+     * @param file
+     *            the file to write
+     * @param bytes
+     *            the size of the file to write, in bytes
+     * @return the number of venues written to the file
+     * @throws IOException
+     *             if there is an error writing to the file
+     */
+    public int writeVenueFile(File file, long bytes) throws IOException {
+        // the number of venues written
+        int count = 0;
+        try (Writer out = new BufferedWriter(new FileWriter(file))) {
+            long written = 0;
+            while (written < bytes) {
+                int capacity = 100 + random.nextInt(400);
+                StringBuilder venue = new StringBuilder();
+                venue.append("Venue ").append(count).append(LINE_SEPARATOR);
+                venue.append(capacity).append(LINE_SEPARATOR);
+                Traffic traffic = traffic(capacity);
+                for (Corridor corridor : traffic.getCorridorsWithTraffic()) {
+                    venue.append(corridor.getStart()).append(", ").append(
+                            corridor.getEnd()).append(", ").append(corridor
+                                    .getCapacity()).append(": ").append(
+                                            traffic.getTraffic(corridor))
+                            .append(LINE_SEPARATOR);
+                }
+                venue.append(LINE_SEPARATOR);
+                out.write(venue.toString());
+                written += venue.length();
+                count++;
+            }
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,81 @@
+package planner.benchmark;
+
+import planner.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks Traffic.addTraffic, Traffic.isSafe and Venue.getTraffic.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class TrafficBenchmark {
+
+    // the seed used to generate the benchmark data
+    private final static long SEED = 2017;
+    // the number of corridors used by the generated venues
+    private final static int CORRIDORS = 12;
+
+    // the traffic records added up by addTraffic
+    private List<Traffic> traffic;
+    // the sum of the first ten traffic records
+    private Traffic total;
+    // the venues and events whose traffic is looked up, in pairs
+    private List<Venue> venues;
+    private List<Event> events;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkData data = new BenchmarkData(SEED, CORRIDORS);
+        traffic = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            traffic.add(data.traffic(100));
+        }
+        total = new Traffic();
+        for (Traffic extra : traffic.subList(0, 10)) {
+            total.addTraffic(extra);
+        }
+        venues = data.venues(100);
+        events = data.events(100);
+    }
+
+    /**
+     * Adds up 1000 traffic records.
+     */
+    @Benchmark
+    public Traffic addTraffic() {
+        Traffic sum = new Traffic();
+        for (Traffic extra : traffic) {
+            sum.addTraffic(extra);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public boolean isSafe() {
+        return total.isSafe();
+    }
+
+    /**
+     * Looks up the traffic of 100 events, each at a different venue.
+     */
+    @Benchmark
+    public void venueTraffic(Blackhole blackhole) {
+        for (int i = 0; i < venues.size(); i++) {
+            Venue venue = venues.get(i);
+            Event event = events.get(i);
+            if (venue.canHost(event)) {
+                blackhole.consume(venue.getTraffic(event));
+            }
+        }
+    }
+
+}
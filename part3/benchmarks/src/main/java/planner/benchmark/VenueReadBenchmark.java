@@ -0,0 +1,86 @@
+package planner.benchmark;
+
+import planner.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * <p>
+ * Benchmarks VenueReader.read and ParallelVenueReader.read on venue files of
+ * 1 KB, and each power of ten larger up to 100 MB, and VenueCatalogue.open
+ * (materialising every venue) on catalogues of the same venues.
+ * </p>
+ *
+ * <p>
+ * The files are generated once for each file size, before it is measured, and
+ * deleted afterwards. To measure only some of the sizes, run the benchmarks
+ * with e.g. -p fileSize=1000,1000000.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class VenueReadBenchmark {
+
+    // the seed used to generate the benchmark data
+    private final static long SEED = 2017;
+    // the number of corridors used by the generated venues
+    private final static int CORRIDORS = 12;
+
+    // the size of the venue file read, in bytes
+    @Param({ "1000", "10000", "100000", "1000000", "10000000",
+            "100000000" })
+    private long fileSize;
+
+    // the venue file, and a catalogue of the same venues
+    private File file;
+    private File catalogue;
+    // a parallel reader with chunks small enough to split every file
+    private ParallelVenueReader parallelReader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, FormatException {
+        file = File.createTempFile("venues", ".txt");
+        new BenchmarkData(SEED, CORRIDORS).writeVenueFile(file, fileSize);
+        catalogue = File.createTempFile("venues", ".cat");
+        VenueCatalogue.write(VenueReader.read(file.getPath()), catalogue
+                .getPath());
+        parallelReader = new ParallelVenueReader(ForkJoinPool.commonPool(),
+                1 << 16);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+        catalogue.delete();
+    }
+
+    @Benchmark
+    public List<Venue> venueReader() throws IOException, FormatException {
+        return VenueReader.read(file.getPath());
+    }
+
+    @Benchmark
+    public List<Venue> parallelVenueReader() throws IOException,
+            FormatException {
+        return parallelReader.read(file.getPath());
+    }
+
+    @Benchmark
+    public void venueCatalogue(Blackhole blackhole) throws IOException,
+            FormatException {
+        for (Venue venue : VenueCatalogue.open(catalogue.getPath())) {
+            blackhole.consume(venue);
+        }
+    }
+
+}
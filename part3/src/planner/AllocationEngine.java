@@ -0,0 +1,168 @@
+package planner;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * Finds safe allocations of events to a fixed list of venues, for answering
+ * many allocation requests against the same venues.
+ * </p>
+ *
+ * <p>
+ * The venues are compiled once, when the engine is created: their corridors
+ * are numbered, the traffic of each venue at its capacity is recorded in int
+ * arrays, and the venues are sorted by capacity. Each request then only has
+ * to compute the traffic of its events at the venues that can host them,
+ * instead of starting from the venues again as Allocator does. The results
+ * are the same as Allocator's for the same events and venues.
+ * </p>
+ *
+ * <p>
+ * An engine is never modified after it is created, so any number of threads
+ * can use it at the same time. The allocateAll method answers a list of
+ * requests concurrently, in the threads of a given executor.
+ * </p>
+ */
+public class AllocationEngine {
+
+    // the compiled venues that events are allocated to
+    private final CompiledVenues venues;
+
+    /*
+     * invariant: venues != null
+     */
+
+    /**
+     * Creates an engine that allocates events to the given venues.
+     *
+     * @require venues != null && !venues.contains(null) && venues does not
+     *          contain duplicate venues
+     * @ensure Creates an engine that allocates events to the given venues.
+     *         The list is not modified, and later changes to it do not affect
+     *         the engine.
+     */
+    public AllocationEngine(List<Venue> venues) {
+        this.venues = new CompiledVenues(venues);
+    }
+
+    /**
+     * Returns the venues that this engine allocates events to, in the order
+     * they were given.
+     *
+     * @return a new list of the venues of this engine
+     */
+    public List<Venue> getVenues() {
+        return venues.venues();
+    }
+
+    /**
+     * Returns a safe allocation of events to the venues of this engine, if
+     * there is at least one possible safe allocation, or null otherwise.
+     *
+     * @require events != null && !events.contains(null) && events does not
+     *          contain duplicate events
+     * @ensure Returns the same allocation as Allocator.allocate(events,
+     *         getVenues()).
+     */
+    public Map<Event, Venue> allocate(List<Event> events) {
+        return allocate(events, EventOrder.GIVEN, VenueOrder.GIVEN);
+    }
+
+    /**
+     * Returns a safe allocation of events to the venues of this engine, if
+     * there is at least one possible safe allocation, or null otherwise. The
+     * search allocates the events in the given event order, and tries the
+     * venues for each event in the given venue order.
+     *
+     * @require events != null && !events.contains(null) && events does not
+     *          contain duplicate events && eventOrder != null && venueOrder
+     *          != null
+     * @ensure Returns the same allocation as Allocator.allocate(events,
+     *         getVenues(), eventOrder, venueOrder).
+     */
+    public Map<Event, Venue> allocate(List<Event> events,
+            EventOrder eventOrder, VenueOrder venueOrder) {
+        return new AllocationSearch(new AllocationProblem(venues, events,
+                eventOrder, venueOrder)).first();
+    }
+
+    /**
+     * Returns the safe allocation of events to the venues of this engine that
+     * has the lowest peak utilisation, if there is at least one possible safe
+     * allocation. The search allocates the events in the given event order,
+     * and tries the venues for each event in the given venue order.
+     *
+     * @require events != null && !events.contains(null) && events does not
+     *          contain duplicate events && eventOrder != null && venueOrder
+     *          != null
+     * @ensure Returns the same result as Allocator.optimalAllocation(events,
+     *         getVenues(), eventOrder, venueOrder).
+     */
+    public AllocationResult optimalAllocation(List<Event> events,
+            EventOrder eventOrder, VenueOrder venueOrder) {
+        return new BranchAndBoundSearch(new AllocationSearch(
+                new AllocationProblem(venues, events, eventOrder, venueOrder)))
+                        .run();
+    }
+
+    /**
+     * Returns the best safe allocation of events to the venues of this engine
+     * that can be found within the given time, as Allocator.allocate does
+     * when it is given a timeout.
+     *
+     * @require events != null && !events.contains(null) && events does not
+     *          contain duplicate events && timeout != null
+     * @ensure Returns a result holding the best safe allocation found before
+     *         the timeout passed (or a null allocation if none was found),
+     *         marked as timed out if the search was stopped by the timeout.
+     */
+    public AllocationResult allocate(List<Event> events, Duration timeout) {
+        // the search with no events allocated
+        AllocationSearch search = new AllocationSearch(new AllocationProblem(
+                venues, events, EventOrder.GIVEN, VenueOrder.GIVEN));
+        search.setDeadline(timeout);
+        return new BranchAndBoundSearch(search).run();
+    }
+
+    /**
+     * Answers each of the given requests concurrently, in the threads of the
+     * given executor, and returns the allocation found for each (as allocate
+     * would), in the order of the requests.
+     *
+     * @require requests != null && each request is a valid argument to
+     *          allocate && executor != null
+     * @ensure Returns a list holding the result of allocate for each request,
+     *         in order, once every request has been answered.
+     * @throws InterruptedException
+     *             if the current thread is interrupted while waiting for the
+     *             requests to be answered, in which case the requests that
+     *             have not been answered yet are cancelled
+     */
+    public List<Map<Event, Venue>> allocateAll(List<List<Event>> requests,
+            ExecutorService executor) throws InterruptedException {
+        // a task answering each request
+        List<Callable<Map<Event, Venue>>> tasks = new ArrayList<>();
+        for (List<Event> events : requests) {
+            tasks.add(() -> allocate(events));
+        }
+        List<Map<Event, Venue>> result = new ArrayList<>();
+        for (Future<Map<Event, Venue>> future : executor.invokeAll(tasks)) {
+            try {
+                result.add(future.get());
+            } catch (ExecutionException e) {
+                // allocate only throws unchecked exceptions
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw (Error) e.getCause();
+            }
+        }
+        return result;
+    }
+
+}
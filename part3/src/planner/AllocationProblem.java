@@ -0,0 +1,419 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * An immutable, compiled description of a problem of allocating events to
+ * venues, in the form used by the allocation searches.
+ * </p>
+ * 
+ * <p>
+ * The venues are numbered by their positions in the list the problem is
+ * created from, and the events by their positions in the order that they are
+ * to be allocated (see EventOrder). The corridors used by the venues are numbered
+ * from zero. The traffic of each event at each venue that can host it is
+ * computed once, from the CompiledVenues, when the problem is created, along
+ * with a bit matrix recording which venues are large enough to host each
+ * event, and (unless the venues are to be tried in the order they are given)
+ * the order in which the venues should be tried for each event (see
+ * VenueOrder). Searches can then record all traffic in int arrays indexed by
+ * corridor number, and never create Traffic objects or box integers.
+ * </p>
+ * 
+ * <p>
+ * Since a problem is never modified after it is created, it can be shared by
+ * searches running in different threads. The compiled venues can in turn be
+ * shared by any number of problems (see AllocationEngine).
+ * </p>
+ */
+final class AllocationProblem {
+
+    // the events to be allocated, in the order they are to be allocated
+    private final Event[] events;
+    // the venues that the events may be allocated to, and their corridors
+    private final CompiledVenues venues;
+    // the traffic on the corridors of each venue from each event at the
+    // venue (at the same positions as in venues.venueCorridors), or null if
+    // the venue cannot host the event
+    private final int[][][] demand;
+    // for each event, a bit set (in words of 64 bits) of the venues that can
+    // host the event, where bit v is set iff venue number v can host it
+    private final long[][] compatible;
+    // for each event, the venues that can host it in the order they should
+    // be tried, or null if they should be tried in order of venue number
+    private final int[][] venueOrder;
+
+    /*
+     * invariant:
+     * 
+     * events, venues and the arrays describing them are not null, and the
+     * arrays have one entry for each event or venue respectively &&
+     * 
+     * for each event e and venue v, demand[e][v] == null iff venues.venue(v)
+     * cannot host events[e], and otherwise demand[e][v].length ==
+     * venues.venueCorridors(v).length &&
+     * 
+     * for each event e, compatible[e].length ==
+     * wordCount(venues.venueCount()) and
+     * the bits of compatible[e] are set for exactly the venues v for which
+     * demand[e][v] != null &&
+     * 
+     * venueOrder == null || for each event e, venueOrder[e] holds exactly the
+     * venues v for which demand[e][v] != null
+     */
+
+    /**
+     * Compiles the problem of allocating the given events to the given
+     * venues.
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Creates the problem of allocating the given events to the given
+     *         venues. Neither parameter is modified.
+     */
+    AllocationProblem(List<Event> events, List<Venue> venues) {
+        this(events, venues, EventOrder.GIVEN, VenueOrder.GIVEN);
+    }
+
+    /**
+     * Compiles the problem of allocating the given events to the given
+     * venues, where the events are allocated in the given order and the
+     * venues are tried in the given order.
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues &&
+     *          eventOrder != null && venueOrder != null
+     * @ensure Creates the problem of allocating the given events to the given
+     *         venues. Neither list is modified.
+     */
+    AllocationProblem(List<Event> events, List<Venue> venues,
+            EventOrder eventOrder, VenueOrder venueOrder) {
+        this(new CompiledVenues(venues), events, eventOrder, venueOrder);
+    }
+
+    /**
+     * Compiles the problem of allocating the given events to the given
+     * compiled venues, where the events are allocated in the given order and
+     * the venues are tried in the given order.
+     * 
+     * @require venues != null && events != null && !events.contains(null) &&
+     *          events does not contain duplicate events && eventOrder != null
+     *          && venueOrder != null
+     * @ensure Creates the problem of allocating the given events to the given
+     *         venues. The list of events is not modified.
+     */
+    AllocationProblem(CompiledVenues venues, List<Event> events,
+            EventOrder eventOrder, VenueOrder venueOrder) {
+        this.events = events.toArray(new Event[events.size()]);
+        this.venues = venues;
+
+        demand = new int[this.events.length][][];
+        compatible = new long[this.events.length][];
+        // the demand and compatible venues of each event size seen so far,
+        // which are shared by the events of that size
+        Map<Integer, int[][]> demandBySize = new HashMap<>();
+        Map<Integer, long[]> compatibleBySize = new HashMap<>();
+        for (int e = 0; e < this.events.length; e++) {
+            int size = this.events[e].getSize();
+            compatible[e] = compatibleBySize.get(size);
+            demand[e] = demandBySize.get(size);
+            if (compatible[e] == null) {
+                compatible[e] = venues.compatibleVenues(size);
+                demand[e] = new int[venues.venueCount()][];
+                for (int w = 0; w < compatible[e].length; w++) {
+                    for (long word = compatible[e][w]; word != 0; word &= word
+                            - 1) {
+                        int v = (w << 6) + Long.numberOfTrailingZeros(word);
+                        demand[e][v] = venues.demand(v, size);
+                    }
+                }
+                compatibleBySize.put(size, compatible[e]);
+                demandBySize.put(size, demand[e]);
+            }
+        }
+        orderEvents(eventOrder);
+        this.venueOrder = orderVenues(venueOrder);
+    }
+
+    /**
+     * Reorders the events, along with their demand and compatible venues,
+     * into the given order.
+     * 
+     * @require order != null && the events have not been reordered yet
+     */
+    private void orderEvents(EventOrder order) {
+        // the key by which each event is sorted, in ascending order
+        double[] keys = new double[events.length];
+        for (int e = 0; e < events.length; e++) {
+            switch (order) {
+            case LARGEST_FIRST:
+                keys[e] = -events[e].getSize();
+                break;
+            case FEWEST_VENUES_FIRST:
+                keys[e] = compatibleCount(e);
+                break;
+            case HIGHEST_LOAD_FIRST:
+                keys[e] = -leastImpact(e);
+                break;
+            default:
+                keys[e] = 0;
+                break;
+            }
+        }
+        // the event numbers, sorted (stably) by their keys
+        Integer[] sorted = new Integer[events.length];
+        for (int e = 0; e < events.length; e++) {
+            sorted[e] = e;
+        }
+        Arrays.sort(sorted, (e1, e2) -> Double.compare(keys[e1], keys[e2]));
+
+        Event[] sortedEvents = events.clone();
+        int[][][] sortedDemand = demand.clone();
+        long[][] sortedCompatible = compatible.clone();
+        for (int e = 0; e < events.length; e++) {
+            events[e] = sortedEvents[sorted[e]];
+            demand[e] = sortedDemand[sorted[e]];
+            compatible[e] = sortedCompatible[sorted[e]];
+        }
+    }
+
+    /**
+     * Returns the venues that can host each event, in the given order, or
+     * null if the venues should be tried in order of venue number.
+     * 
+     * @require order != null
+     */
+    private int[][] orderVenues(VenueOrder order) {
+        if (order == VenueOrder.GIVEN) {
+            return null;
+        }
+        int[][] result = new int[events.length][];
+        for (int e = 0; e < events.length; e++) {
+            // the venues that can host the event
+            Integer[] sorted = new Integer[compatibleCount(e)];
+            int count = 0;
+            for (int v = 0; v < venues.venueCount(); v++) {
+                if (demand[e][v] != null) {
+                    sorted[count++] = v;
+                }
+            }
+            // the corridor impact of the event at each venue
+            double[] impacts = new double[venues.venueCount()];
+            for (int v : sorted) {
+                impacts[v] = impact(e, v);
+            }
+            Arrays.sort(sorted, (v1, v2) -> Double.compare(impacts[v1],
+                    impacts[v2]));
+            result[e] = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                result[e][i] = sorted[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of venues that can host event number e.
+     */
+    private int compatibleCount(int e) {
+        int count = 0;
+        for (long word : compatible[e]) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the total traffic caused by hosting event number e at venue
+     * number v, as a proportion of the capacity of each corridor.
+     * 
+     * @require venue number v can host event number e
+     */
+    private double impact(int e, int v) {
+        double result = 0;
+        // the corridors of the venue, and their capacities
+        int[] corridors = venues.venueCorridors(v);
+        int[] capacities = venues.corridorCapacities();
+        for (int i = 0; i < corridors.length; i++) {
+            result += (double) demand[e][v][i] / capacities[corridors[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the least corridor impact of event number e at any venue that
+     * can host it, or positive infinity if no venue can host it.
+     */
+    private double leastImpact(int e) {
+        double result = Double.POSITIVE_INFINITY;
+        for (int v = 0; v < venues.venueCount(); v++) {
+            if (demand[e][v] != null) {
+                result = Math.min(result, impact(e, v));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of 64-bit words needed for a bit set of the given
+     * number of bits.
+     * 
+     * @require bits >= 0
+     * @return the number of words needed for a bit set of the given size
+     */
+    static int wordCount(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    /**
+     * Returns the number of events to be allocated.
+     * 
+     * @return the number of events in the problem
+     */
+    int eventCount() {
+        return events.length;
+    }
+
+    /**
+     * Returns the number of venues that events may be allocated to.
+     * 
+     * @return the number of venues in the problem
+     */
+    int venueCount() {
+        return venues.venueCount();
+    }
+
+    /**
+     * Returns the number of corridors with traffic from the venues.
+     * 
+     * @return the number of corridors in the problem
+     */
+    int corridorCount() {
+        return venues.corridorCount();
+    }
+
+    /**
+     * Returns event number e.
+     * 
+     * @require 0 <= e < eventCount()
+     * @return event number e
+     */
+    Event event(int e) {
+        return events[e];
+    }
+
+    /**
+     * Returns venue number v.
+     * 
+     * @require 0 <= v < venueCount()
+     * @return venue number v
+     */
+    Venue venue(int v) {
+        return venues.venue(v);
+    }
+
+    /**
+     * Returns the capacity of corridor number c.
+     * 
+     * @require 0 <= c < corridorCount()
+     * @return the capacity of corridor number c
+     */
+    int corridorCapacity(int c) {
+        return venues.corridorCapacities()[c];
+    }
+
+    /**
+     * Returns the numbers of the corridors with traffic from venue number v.
+     * The array returned is shared, and must not be modified.
+     * 
+     * @require 0 <= v < venueCount()
+     * @return the numbers of the corridors with traffic from venue number v
+     */
+    int[] venueCorridors(int v) {
+        return venues.venueCorridors(v);
+    }
+
+    /**
+     * Returns the bit set (in words of 64 bits) of the venues that can host
+     * event number e: bit v of the set is bit (v % 64) of word (v / 64), and
+     * is set iff venue number v can host the event. The array returned is
+     * shared, and must not be modified.
+     * 
+     * @require 0 <= e < eventCount()
+     * @return the bit set of the venues that can host event number e
+     */
+    long[] compatibleVenues(int e) {
+        return compatible[e];
+    }
+
+    /**
+     * Returns the venues that can host event number e, in the order they
+     * should be tried, or null if they should be tried in order of venue
+     * number. The array returned is shared, and must not be modified.
+     * 
+     * @require 0 <= e < eventCount()
+     * @return the venues that can host event number e in the order they
+     *         should be tried, or null if they should be tried in order of
+     *         venue number
+     */
+    int[] venueOrder(int e) {
+        return (venueOrder == null ? null : venueOrder[e]);
+    }
+
+    /**
+     * Returns the peak utilisation of the given corridor loads, i.e. the
+     * greatest ratio of load to capacity over all of the corridors (or 0 if
+     * there are no corridors).
+     * 
+     * @require load != null && load.length == corridorCount()
+     * @return the peak utilisation of the given loads
+     */
+    double peakUtilisation(int[] load) {
+        // the traffic and capacity of the peak fraction so far
+        long peakTraffic = 0;
+        long peakCapacity = 1;
+        for (int c = 0; c < load.length; c++) {
+            // compare load[c] / capacity with the peak by cross-multiplying
+            long capacity = corridorCapacity(c);
+            if (load[c] * peakCapacity > peakTraffic * capacity) {
+                peakTraffic = load[c];
+                peakCapacity = capacity;
+            }
+        }
+        return (double) peakTraffic / peakCapacity;
+    }
+
+    /**
+     * Returns the allocation of each event number e to venue number
+     * assignment[e], as a map from events to venues.
+     * 
+     * @require assignment != null && assignment.length == eventCount() &&
+     *          each assignment[e] is a venue number
+     * @return a new map from each event to its allocated venue
+     */
+    Map<Event, Venue> toAllocation(int[] assignment) {
+        Map<Event, Venue> allocation = new HashMap<>();
+        for (int e = 0; e < assignment.length; e++) {
+            allocation.put(events[e], venues.venue(assignment[e]));
+        }
+        return allocation;
+    }
+
+    /**
+     * Returns the traffic from hosting event number e at venue number v, on
+     * each of the corridors returned by venueCorridors(v), or null if the
+     * venue cannot host the event. The array returned is shared, and must not
+     * be modified.
+     * 
+     * @require 0 <= e < eventCount() && 0 <= v < venueCount()
+     * @return the traffic from event number e at venue number v, or null if
+     *         the venue cannot host the event
+     */
+    int[] demand(int e, int v) {
+        return demand[e][v];
+    }
+
+}
@@ -0,0 +1,109 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * An immutable record of the result of an allocation search: the safe
+ * allocation that was found (if any), how heavily it uses the corridors, and
+ * the work done by the search.
+ * </p>
+ * 
+ * <p>
+ * The peak utilisation of an allocation is the greatest ratio of traffic to
+ * capacity over all of the corridors, where the traffic on each corridor is
+ * the traffic caused by the allocation. A safe allocation has a peak
+ * utilisation of at most 1.
+ * </p>
+ */
+public class AllocationResult {
+
+    // the safe allocation found, or null if none was found
+    private Map<Event, Venue> allocation;
+    // the peak utilisation of the allocation, or NaN if none was found
+    private double peakUtilisation;
+    // the work done by the search
+    private SearchStatistics statistics;
+    // true if the search was stopped by its deadline before it finished
+    private boolean timedOut;
+
+    /*
+     * invariant: statistics != null && (allocation == null) ==
+     * Double.isNaN(peakUtilisation)
+     */
+
+    /**
+     * Creates a new result.
+     * 
+     * @require statistics != null && (allocation == null) ==
+     *          Double.isNaN(peakUtilisation)
+     */
+    AllocationResult(Map<Event, Venue> allocation, double peakUtilisation,
+            SearchStatistics statistics) {
+        this(allocation, peakUtilisation, statistics, false);
+    }
+
+    /**
+     * Creates a new result of a search that may have been stopped by its
+     * deadline.
+     * 
+     * @require statistics != null && (allocation == null) ==
+     *          Double.isNaN(peakUtilisation)
+     */
+    AllocationResult(Map<Event, Venue> allocation, double peakUtilisation,
+            SearchStatistics statistics, boolean timedOut) {
+        this.allocation = (allocation == null ? null
+                : Collections.unmodifiableMap(new HashMap<>(allocation)));
+        this.peakUtilisation = peakUtilisation;
+        this.statistics = statistics;
+        this.timedOut = timedOut;
+    }
+
+    /**
+     * Returns the safe allocation that was found, or null if none was found.
+     * 
+     * @return the (unmodifiable) safe allocation found, or null if none was
+     *         found
+     */
+    public Map<Event, Venue> getAllocation() {
+        return allocation;
+    }
+
+    /**
+     * Returns the peak utilisation of the allocation that was found, or NaN if
+     * none was found.
+     * 
+     * @return the peak utilisation of the allocation found, or NaN if none was
+     *         found
+     */
+    public double getPeakUtilisation() {
+        return peakUtilisation;
+    }
+
+    /**
+     * Returns the work done by the search.
+     * 
+     * @return the statistics of the search
+     */
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * <p>
+     * Returns true if the search ran out of time before it finished.
+     * </p>
+     * 
+     * <p>
+     * In that case the allocation is the best that was found before the
+     * deadline (which need not be the best there is), and a null allocation
+     * does not mean that there is no safe allocation.
+     * </p>
+     * 
+     * @return true if the search was stopped by its deadline
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+}
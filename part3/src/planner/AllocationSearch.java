@@ -0,0 +1,547 @@
+package planner;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * A depth-first search for safe allocations of the events of an
+ * AllocationProblem to its venues.
+ * </p>
+ * 
+ * <p>
+ * The search keeps a running record of the traffic caused by the events that
+ * have been allocated so far. The traffic of an event is added to that record
+ * when the event is allocated to a venue, and removed again when the search
+ * backtracks. A venue is rejected for an event as soon as hosting the event
+ * there would push any corridor over its capacity, so unsafe partial
+ * allocations are never expanded.
+ * </p>
+ * 
+ * <p>
+ * Events are allocated in order of their numbers in the problem (which is the
+ * event order the problem was created with), so the
+ * events allocated at any point in the search are those before some position
+ * index. A search (i.e. its partial allocation) can be copied, so that
+ * different parts of the search tree can be explored independently.
+ * </p>
+ */
+class AllocationSearch {
+
+    // the number of calls to isStopped between readings of the clock
+    private final static int CLOCK_CHECK_INTERVAL = 256;
+    // the number of nodes first explores before it records dead ends, so
+    // that easy searches do not pay for the table
+    private final static int DEAD_END_THRESHOLD = 1000;
+
+    // the problem being searched
+    private final AllocationProblem problem;
+
+    // the venue number allocated to each event, or -1 if it is unallocated
+    private int[] assignment;
+    // the bit set (in words of 64 bits) of the venues that have already
+    // been allocated an event
+    private long[] used;
+    // the traffic on each corridor caused by the events allocated so far
+    private int[] load;
+    // a flag that stops the search when it is set, or null if the search
+    // cannot be stopped
+    private AtomicBoolean stopped;
+    // true if the search stops at the value deadline of System.nanoTime()
+    private boolean hasDeadline;
+    private long deadline;
+    // the number of calls to isStopped left before the clock is next read
+    private int untilClockCheck;
+    // true if the search has been stopped by its deadline
+    private boolean timedOut;
+    // the record of the work done by first, or null if it is not recorded
+    private SearchStatistics statistics;
+    // the dead ends met by first, or null if they are not recorded (yet)
+    private DeadEndTable deadEnds;
+    // the number of nodes left for first to explore before it starts to
+    // record dead ends, or 0 if it never does
+    private int untilDeadEnds;
+    // the hash of the used venues and load, kept up to date if deadEnds is
+    // not null
+    private long stateHash;
+
+    /*
+     * invariant:
+     * 
+     * problem != null && assignment.length == problem.eventCount() &&
+     * used.length == AllocationProblem.wordCount(problem.venueCount()) &&
+     * load.length ==
+     * problem.corridorCount() &&
+     * 
+     * load is the traffic caused by allocating each event number e to venue
+     * number assignment[e], for each assignment[e] != -1, and used marks
+     * exactly those venues
+     */
+
+    /**
+     * Creates a new search for safe allocations of the given events to the
+     * given venues.
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Creates a search over the given events and venues, in which no
+     *         event has been allocated yet. Neither parameter is modified by
+     *         the search.
+     */
+    AllocationSearch(List<Event> events, List<Venue> venues) {
+        this(new AllocationProblem(events, venues));
+    }
+
+    /**
+     * Creates a new search for safe allocations of the given events to the
+     * given venues, that allocates the events in the given order and tries
+     * the venues for each event in the given order.
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues &&
+     *          eventOrder != null && venueOrder != null
+     * @ensure Creates a search over the given events and venues, in which no
+     *         event has been allocated yet. Neither list is modified by the
+     *         search.
+     */
+    AllocationSearch(List<Event> events, List<Venue> venues,
+            EventOrder eventOrder, VenueOrder venueOrder) {
+        this(new AllocationProblem(events, venues, eventOrder, venueOrder));
+    }
+
+    /**
+     * Creates a new search for safe allocations in the given problem.
+     * 
+     * @require problem != null
+     * @ensure Creates a search of the given problem, in which no event has
+     *         been allocated yet.
+     */
+    AllocationSearch(AllocationProblem problem) {
+        this.problem = problem;
+        assignment = new int[problem.eventCount()];
+        Arrays.fill(assignment, -1);
+        used = new long[AllocationProblem.wordCount(problem.venueCount())];
+        load = new int[problem.corridorCount()];
+    }
+
+    /**
+     * Creates a copy of the given search, with the same partial allocation.
+     * Changes to the copy do not affect the original, and vice versa.
+     * 
+     * @require other != null
+     * @ensure Creates a copy of the given search that shares its problem,
+     *         stopped flag and deadline.
+     */
+    AllocationSearch(AllocationSearch other) {
+        problem = other.problem;
+        assignment = other.assignment.clone();
+        used = other.used.clone();
+        load = other.load.clone();
+        stopped = other.stopped;
+        hasDeadline = other.hasDeadline;
+        deadline = other.deadline;
+        timedOut = other.timedOut;
+    }
+
+    /**
+     * Returns the problem being searched.
+     * 
+     * @return the problem being searched
+     */
+    AllocationProblem getProblem() {
+        return problem;
+    }
+
+    /**
+     * Sets a flag that stops the search once it has been set. A stopped search
+     * behaves as if there were no (more) safe allocations to be found.
+     * 
+     * @param stopped
+     *            the flag that will stop the search when it is set, or null
+     *            if the search cannot be stopped
+     */
+    void setStoppedFlag(AtomicBoolean stopped) {
+        this.stopped = stopped;
+    }
+
+    /**
+     * <p>
+     * Sets a deadline the given time from now, after which the search is
+     * stopped (as if its stopped flag had been set).
+     * </p>
+     * 
+     * <p>
+     * The clock is only read every few hundred nodes, so the search can run
+     * a little past the deadline. A timeout that is not greater than zero
+     * stops the search before it explores any node, and a timeout too long to
+     * be measured in nanoseconds (centuries) sets no deadline.
+     * </p>
+     * 
+     * @require timeout != null
+     */
+    void setDeadline(Duration timeout) {
+        try {
+            deadline = System.nanoTime() + Math.max(0, timeout.toNanos());
+            hasDeadline = true;
+        } catch (ArithmeticException e) {
+            // the timeout is centuries long, or far in the past
+            hasDeadline = timeout.isNegative();
+            deadline = System.nanoTime();
+        }
+        untilClockCheck = 0;
+        timedOut = false;
+    }
+
+    /**
+     * Sets the record of the work done by the first method. Only the nodes
+     * explored and pruned by first are recorded (and a copy of this search
+     * does not share the record).
+     * 
+     * @param statistics
+     *            the record to update, or null if the work should not be
+     *            recorded
+     */
+    void setStatistics(SearchStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Returns the first safe allocation found by the search, or null if there
+     * is no possible safe allocation.
+     * 
+     * (The search is not started at all if the events cannot be matched to
+     * different venues that can host them. Once the search has explored a
+     * thousand nodes, it records the nodes it finds to be dead ends, so that a
+     * node that leaves the same events, venues and corridor loads as a dead
+     * end is not explored again.)
+     * 
+     * @require no event has been allocated yet
+     * @ensure Returns a map from each event to the venue it is allocated to in
+     *         the first safe allocation found, or null if there is none.
+     */
+    Map<Event, Venue> first() {
+        if (!EventMatching.coversEveryEvent(problem)) {
+            return null;
+        }
+        untilDeadEnds = DEAD_END_THRESHOLD;
+        // whether an allocation was found
+        boolean found = first(0);
+        untilDeadEnds = 0;
+        deadEnds = null;
+        return (found ? toAllocation() : null);
+    }
+
+    /**
+     * Returns the set of all possible safe allocations.
+     * 
+     * @require no event has been allocated yet
+     * @ensure Returns the set of all possible safe allocations, or an empty
+     *         set if there are no possible safe allocations.
+     */
+    Set<Map<Event, Venue>> all() {
+        Set<Map<Event, Venue>> result = new HashSet<>();
+        if (EventMatching.coversEveryEvent(problem)) {
+            all(0, result);
+        }
+        return result;
+    }
+
+    /**
+     * Searches for the first safe allocation that extends the current partial
+     * allocation of the events before position index.
+     * 
+     * @require 0 <= index <= problem.eventCount() && exactly the events before
+     *          position index have been allocated.
+     * @ensure Returns true if a safe allocation was found, in which case it is
+     *         recorded in this search. Otherwise returns false, and the
+     *         partial allocation is left as it was given.
+     */
+    boolean first(int index) {
+        if (isStopped()) {
+            return false;
+        }
+        if (statistics != null) {
+            statistics.nodeExplored();
+        }
+        if (untilDeadEnds > 0 && --untilDeadEnds == 0) {
+            recordDeadEnds();
+        }
+        /* BASE CASE: no more events to allocate */
+        if (index == problem.eventCount()) {
+            return true;
+        }
+
+        /* RECURSIVE CASE: there is at least one more event to allocate. */
+        if (deadEnds != null && deadEnds.contains(index, stateHash, used,
+                load)) {
+            // an equivalent node has already been explored in vain
+            if (statistics != null) {
+                statistics.nodePruned();
+            }
+            return false;
+        }
+        for (int k = nextCandidate(index, 0); k >= 0; k = nextCandidate(index,
+                k + 1)) {
+            // the kth venue to try for the event
+            int v = candidateVenue(index, k);
+            if (place(index, v)) {
+                if (first(index + 1)) {
+                    return true;
+                }
+                remove(index, v);
+            } else if (statistics != null) {
+                // hosting the event at the venue is unsafe
+                statistics.nodePruned();
+            }
+        }
+        // a node is only a dead end if the search was not cut short
+        if (deadEnds != null && !isStopped()) {
+            deadEnds.add(index, stateHash, used, load);
+        }
+        return false;
+    }
+
+    /**
+     * Starts to record the dead ends met by first, in a new table, and
+     * computes the hash of the current state for it.
+     */
+    private void recordDeadEnds() {
+        deadEnds = new DeadEndTable(problem, (statistics != null ? statistics
+                : new SearchStatistics()));
+        stateHash = 0;
+        for (int e = 0; e < assignment.length; e++) {
+            if (assignment[e] >= 0) {
+                stateHash += deadEnds.hashOf(assignment[e], problem
+                        .venueCorridors(assignment[e]), problem.demand(e,
+                                assignment[e]));
+            }
+        }
+    }
+
+    /**
+     * Adds every safe allocation that extends the current partial allocation
+     * of the events before position index to result.
+     * 
+     * @require 0 <= index <= problem.eventCount() && exactly the events before
+     *          position index have been allocated && result != null
+     * @ensure Adds each safe allocation extending the partial allocation to
+     *         result. The partial allocation is left as it was given.
+     */
+    void all(int index, Set<Map<Event, Venue>> result) {
+        if (isStopped()) {
+            return;
+        }
+        /* BASE CASE: no more events to allocate */
+        if (index == problem.eventCount()) {
+            result.add(toAllocation());
+            return;
+        }
+
+        /* RECURSIVE CASE: there is at least one more event to allocate. */
+        for (int k = nextCandidate(index, 0); k >= 0; k = nextCandidate(index,
+                k + 1)) {
+            // the kth venue to try for the event
+            int v = candidateVenue(index, k);
+            if (place(index, v)) {
+                all(index + 1, result);
+                remove(index, v);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the position, at or after position from, of the next venue to
+     * try for the event at position index: a venue that can host the event
+     * and has not already been allocated an event. Returns -1 if there is no
+     * such venue.
+     * </p>
+     * 
+     * <p>
+     * Positions are in the order that the problem says the venues should be
+     * tried for the event. The venue at a position is given by
+     * candidateVenue.
+     * </p>
+     * 
+     * @require 0 <= index < problem.eventCount() && from >= 0
+     * @ensure Returns the least position k >= from such that the venue at
+     *         position k can host the event at position index and has not
+     *         been allocated an event, or -1 if there is no such position.
+     */
+    int nextCandidate(int index, int from) {
+        // the venues to try for the event, or null to try them by number
+        int[] order = problem.venueOrder(index);
+        if (order != null) {
+            for (int k = from; k < order.length; k++) {
+                if (!isUsed(order[k])) {
+                    return k;
+                }
+            }
+            return -1;
+        }
+        // the bit set of the venues that can host the event
+        long[] compatible = problem.compatibleVenues(index);
+        // the word holding the bit of venue number from
+        int word = from >>> 6;
+        if (word >= compatible.length) {
+            return -1;
+        }
+        // the candidates in that word, ignoring those before venue from
+        long candidates = compatible[word] & ~used[word] & (-1L << from);
+        while (candidates == 0) {
+            word++;
+            if (word == compatible.length) {
+                return -1;
+            }
+            candidates = compatible[word] & ~used[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(candidates);
+    }
+
+    /**
+     * Returns the number of the venue at position k of the venues to try for
+     * the event at position index.
+     * 
+     * @require 0 <= index < problem.eventCount() && k was returned by
+     *          nextCandidate(index, from) for some from
+     * @return the number of the venue at position k
+     */
+    int candidateVenue(int index, int k) {
+        // the venues to try for the event, or null to try them by number
+        int[] order = problem.venueOrder(index);
+        return (order == null ? k : order[k]);
+    }
+
+    /**
+     * Allocates the event at position index to venue number v, if the venue
+     * is available, can host the event, and the traffic of the event at the
+     * venue would not push any corridor over its capacity.
+     * 
+     * @require 0 <= index < problem.eventCount() && 0 <= v <
+     *          problem.venueCount() && the event at position index has not
+     *          been allocated
+     * @ensure Returns true if the event was allocated to the venue (and its
+     *         traffic added to the running load), or false if it could not be
+     *         allocated to the venue.
+     */
+    boolean place(int index, int v) {
+        // the traffic of the event on each of the venue's corridors
+        int[] traffic = problem.demand(index, v);
+        if (isUsed(v) || traffic == null) {
+            return false;
+        }
+        int[] corridors = problem.venueCorridors(v);
+        for (int i = 0; i < corridors.length; i++) {
+            if (load[corridors[i]] + traffic[i] > problem.corridorCapacity(
+                    corridors[i])) {
+                return false;
+            }
+        }
+        for (int i = 0; i < corridors.length; i++) {
+            load[corridors[i]] += traffic[i];
+        }
+        if (deadEnds != null) {
+            stateHash += deadEnds.hashOf(v, corridors, traffic);
+        }
+        used[v >>> 6] |= 1L << v;
+        assignment[index] = v;
+        return true;
+    }
+
+    /**
+     * Removes the allocation of the event at position index to venue number
+     * v.
+     * 
+     * @require the event at position index is allocated to venue number v
+     * @ensure The allocation is undone, and its traffic removed from the
+     *         running load.
+     */
+    void remove(int index, int v) {
+        int[] corridors = problem.venueCorridors(v);
+        int[] traffic = problem.demand(index, v);
+        for (int i = 0; i < corridors.length; i++) {
+            load[corridors[i]] -= traffic[i];
+        }
+        if (deadEnds != null) {
+            stateHash -= deadEnds.hashOf(v, corridors, traffic);
+        }
+        used[v >>> 6] &= ~(1L << v);
+        assignment[index] = -1;
+    }
+
+    /**
+     * Returns the current allocation as a map from events to venues.
+     * 
+     * @require every event has been allocated
+     * @ensure Returns a new map from each event to its allocated venue.
+     */
+    Map<Event, Venue> toAllocation() {
+        return problem.toAllocation(assignment);
+    }
+
+    /**
+     * Returns a copy of the current (partial) allocation: the venue number
+     * allocated to each event, or -1 if the event has not been allocated.
+     * 
+     * @return a copy of the venue number allocated to each event
+     */
+    int[] getAssignment() {
+        return assignment.clone();
+    }
+
+    /**
+     * Returns the traffic on corridor number c caused by the events allocated
+     * so far.
+     * 
+     * @require 0 <= c < problem.corridorCount()
+     * @return the traffic on corridor number c
+     */
+    int getLoad(int c) {
+        return load[c];
+    }
+
+    /**
+     * Returns the peak utilisation of the current (partial) allocation, i.e.
+     * the greatest ratio of traffic to capacity over all of the corridors (or
+     * 0 if there are no corridors).
+     * 
+     * @return the peak utilisation of the current allocation
+     */
+    double peakUtilisation() {
+        return problem.peakUtilisation(load);
+    }
+
+    /**
+     * Returns true if the stopped flag of this search has been set, or the
+     * search has passed its deadline.
+     * 
+     * @return true if the search has been stopped
+     */
+    boolean isStopped() {
+        if (hasDeadline && !timedOut && --untilClockCheck < 0) {
+            untilClockCheck = CLOCK_CHECK_INTERVAL;
+            timedOut = System.nanoTime() - deadline >= 0;
+        }
+        return timedOut || (stopped != null && stopped.get());
+    }
+
+    /**
+     * Returns true if this search has been stopped by its deadline.
+     * 
+     * @return true if isStopped has found the search past its deadline
+     */
+    boolean hasTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Returns true if venue number v has been allocated an event.
+     */
+    private boolean isUsed(int v) {
+        return (used[v >>> 6] & (1L << v)) != 0;
+    }
+
+}
@@ -0,0 +1,48 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * A method of finding a safe allocation of events to venues.
+ * </p>
+ *
+ * <p>
+ * Different solvers trade the quality of their answers for time. An exact
+ * solver (such as BacktrackingSolver) always finds a safe allocation if there
+ * is one, but can take exponential time to do so. A heuristic solver (such as
+ * GreedySolver or AnnealingSolver) answers quickly even for large problems,
+ * but may fail to find a safe allocation that exists. Every solver only ever
+ * returns allocations that are safe.
+ * </p>
+ *
+ * <p>
+ * Solvers can be created from a configuration by AllocationSolvers.create.
+ * </p>
+ */
+public interface AllocationSolver {
+
+    /**
+     * Searches for a safe allocation of events to venues, and returns the
+     * result of the search.
+     *
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Returns a result holding a safe allocation of events to venues,
+     *         with its peak utilisation and the work done by the solver, or a
+     *         result with a null allocation if none was found. If the solver
+     *         is exact, the allocation is null only if there is no possible
+     *         safe allocation.
+     */
+    AllocationResult solve(List<Event> events, List<Venue> venues);
+
+    /**
+     * Returns true if this solver always finds a safe allocation when there
+     * is one, and false if it may fail to.
+     *
+     * @return true iff this solver is exact
+     */
+    boolean isExact();
+
+}
@@ -0,0 +1,150 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * Provides a method to create an AllocationSolver from a configuration.
+ * </p>
+ *
+ * <p>
+ * The configuration is a set of properties. The "solver" property names the
+ * solver, and the other properties set its parameters. Any property that is
+ * not given takes its default value.
+ * </p>
+ *
+ * <ul>
+ * <li>"backtracking" (the default): a BacktrackingSolver that returns the
+ * first safe allocation it finds. Its event and venue orders are the names of
+ * EventOrder and VenueOrder constants, set by "eventOrder" and "venueOrder"
+ * (GIVEN by default).</li>
+ * <li>"optimal": a BacktrackingSolver that finds the safe allocation with the
+ * lowest peak utilisation, with the same properties as "backtracking".</li>
+ * <li>"greedy": a GreedySolver, whose event order is set by "eventOrder"
+ * (LARGEST_FIRST by default).</li>
+ * <li>"annealing": an AnnealingSolver, whose parameters are set by
+ * "annealing.steps", "annealing.initialTemperature",
+ * "annealing.finalTemperature" and "annealing.seed".</li>
+ * </ul>
+ *
+ * <p>
+ * For example, the properties <br>
+ * <br>
+ * solver=annealing<br>
+ * annealing.steps=5000000<br>
+ * <br>
+ * select an AnnealingSolver that takes up to five million steps.
+ * </p>
+ */
+public class AllocationSolvers {
+
+    /**
+     * This class only provides a static method.
+     */
+    private AllocationSolvers() {
+    }
+
+    /**
+     * Creates the solver described by the given configuration.
+     *
+     * @param configuration
+     *            the properties that select the solver and set its parameters
+     * @return the solver described by the configuration
+     * @throws NullPointerException
+     *             if configuration is null
+     * @throws IllegalArgumentException
+     *             if the configuration names an unknown solver, or gives an
+     *             invalid value for a parameter
+     */
+    public static AllocationSolver create(Properties configuration) {
+        String name = configuration.getProperty("solver", "backtracking");
+        switch (name) {
+        case "backtracking":
+        case "optimal":
+            return new BacktrackingSolver(enumProperty(configuration,
+                    "eventOrder", EventOrder.GIVEN), enumProperty(
+                            configuration, "venueOrder", VenueOrder.GIVEN),
+                    name.equals("optimal"));
+        case "greedy":
+            return new GreedySolver(enumProperty(configuration, "eventOrder",
+                    EventOrder.LARGEST_FIRST));
+        case "annealing":
+            return new AnnealingSolver(longProperty(configuration,
+                    "annealing.steps", AnnealingSolver.DEFAULT_STEPS),
+                    doubleProperty(configuration,
+                            "annealing.initialTemperature",
+                            AnnealingSolver.DEFAULT_INITIAL_TEMPERATURE),
+                    doubleProperty(configuration,
+                            "annealing.finalTemperature",
+                            AnnealingSolver.DEFAULT_FINAL_TEMPERATURE),
+                    longProperty(configuration, "annealing.seed",
+                            AnnealingSolver.DEFAULT_SEED));
+        default:
+            throw new IllegalArgumentException("Unknown solver: " + name);
+        }
+    }
+
+    /**
+     * Returns the constant of the given enum type named by the given
+     * property, or defaultValue if the property is not set.
+     *
+     * @throws IllegalArgumentException
+     *             if the property does not name a constant
+     */
+    private static <E extends Enum<E>> E enumProperty(
+            Properties configuration, String key, E defaultValue) {
+        String value = configuration.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(defaultValue.getDeclaringClass(), value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value for " + key
+                    + ": " + value);
+        }
+    }
+
+    /**
+     * Returns the integer given by the given property, or defaultValue if the
+     * property is not set.
+     *
+     * @throws IllegalArgumentException
+     *             if the property is not an integer
+     */
+    private static long longProperty(Properties configuration, String key,
+            long defaultValue) {
+        String value = configuration.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key
+                    + ": " + value);
+        }
+    }
+
+    /**
+     * Returns the number given by the given property, or defaultValue if the
+     * property is not set.
+     *
+     * @throws IllegalArgumentException
+     *             if the property is not a number
+     */
+    private static double doubleProperty(Properties configuration,
+            String key, double defaultValue) {
+        String value = configuration.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key
+                    + ": " + value);
+        }
+    }
+
+}
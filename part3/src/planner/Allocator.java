@@ -1,6 +1,8 @@
 package planner;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Provides a method for finding a safe allocation of events to venues.
@@ -26,92 +28,188 @@ public class Allocator {
      */
     public static Map<Event, Venue> allocate(List<Event> events,
             List<Venue> venues) {
-        // DO NOT MODIFY THE IMPLEMENTATION OF THIS METHOD
-        Set<Map<Event, Venue>> allocations = allocations(events, venues);
-        if (allocations.isEmpty()) {
-            // returns null to signify that there is no possible safe allocation
-            return null;
-        } else {
-            // returns one (any one) of the possible safe allocations
-            return allocations.iterator().next();
-        }
+        return new AllocationSearch(events, venues).first();
     }
 
     /**
-     * Returns the set of all possible safe allocations of events to venues.
+     * <p>
+     * Returns a safe allocation of events to venues, if there is at least one
+     * possible safe allocation, or null otherwise.
+     * </p>
+     * 
+     * <p>
+     * The search can be stopped from another thread by setting the given flag,
+     * in which case this method returns null as soon as it notices, unless it
+     * has already found a safe allocation. (The caller can tell the two cases
+     * apart by checking the flag.)
+     * </p>
      * 
      * @require events != null && venues != null && !events.contains(null) &&
      *          !venues.contains(null) && events does not contain duplicate
-     *          events && venues does not contain duplicate venues.
-     * @ensure Returns the set of all possible safe allocations of events to
-     *         venues. (Note: if there are no possible allocations, then this
-     *         method should return an empty set of allocations.)
+     *          events && venues does not contain duplicate venues && stopped
+     *          != null
+     * @ensure Returns a safe allocation of events to venues, if there is at
+     *         least one possible safe allocation and one is found before the
+     *         search is stopped, or null otherwise.
      */
-    private static Set<Map<Event, Venue>> allocations(List<Event> events,
-            List<Venue> venues) {
-        // set of possible allocations
-        Set<Map<Event, Venue>> result = new HashSet<>();
+    public static Map<Event, Venue> allocate(List<Event> events,
+            List<Venue> venues, AtomicBoolean stopped) {
+        // the search with no events allocated
+        AllocationSearch search = new AllocationSearch(events, venues);
+        search.setStoppedFlag(stopped);
+        return search.first();
+    }
 
-        /* BASE CASE: no more events to allocate */
-        if (events.isEmpty()) {
-            result.add(new HashMap<Event, Venue>());
-            return result;
-        }
+    /**
+     * <p>
+     * Returns a safe allocation of events to venues, if there is at least one
+     * possible safe allocation, or null otherwise.
+     * </p>
+     * 
+     * <p>
+     * The search allocates the events in the given event order, and tries the
+     * venues for each event in the given venue order. The orders do not
+     * change whether or not a safe allocation is found, but can greatly
+     * change how long it takes to find one (or to find that there are none).
+     * </p>
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues &&
+     *          eventOrder != null && venueOrder != null
+     * @ensure Returns a safe allocation of events to venues, if there is at
+     *         least one possible safe allocation, or null otherwise.
+     */
+    public static Map<Event, Venue> allocate(List<Event> events,
+            List<Venue> venues, EventOrder eventOrder, VenueOrder venueOrder) {
+        return new AllocationSearch(events, venues, eventOrder, venueOrder)
+                .first();
+    }
 
-        /* RECURSIVE CASE: there is at least one more event to allocate. */
-        // the event to be allocated next
-        Event event = events.get(0);
-        // the rest of the events to be allocated
-        List<Event> remainingEvents = events.subList(1, events.size());
-        for (int i = 0; i < venues.size(); i++) {
-            // find possible safe allocations of event at the ith venue
-            Venue venue = venues.get(i);
-            if (venue.canHost(event)) {
-                venues.remove(i); // remove venue from available venues
-                Set<Map<Event, Venue>> allocations = allocations(
-                        remainingEvents, venues);
-                for (Map<Event, Venue> allocation : allocations) {
-                    allocation.put(event, venue);
-                    if (safeTraffic(allocation)) {
-                        result.add(allocation);
-                    }
-                }
-                venues.add(i, venue); // add venue back to available venues
-            }
-        }
-        return result;
+    /**
+     * <p>
+     * Returns the best safe allocation of events to venues that can be found
+     * within the given time, for callers that must answer by a deadline.
+     * </p>
+     * 
+     * <p>
+     * The allocation is found by the same search as optimalAllocation, with
+     * the events and venues in the given order. That search finds a first
+     * safe allocation about as quickly as allocate does, and then keeps
+     * looking for allocations with a lower peak utilisation. If the search
+     * has not finished when the timeout has passed, it is stopped, and the
+     * result holds the best allocation found so far (or no allocation, if none
+     * was found in time) and is marked as timed out.
+     * </p>
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues && timeout
+     *          != null
+     * @ensure Returns a result holding a safe allocation of events to venues,
+     *         with the lowest possible peak utilisation unless the result is
+     *         timed out, or a result with a null allocation if there is no
+     *         safe allocation or none was found in time. The search runs for
+     *         little more than the timeout.
+     */
+    public static AllocationResult allocate(List<Event> events,
+            List<Venue> venues, Duration timeout) {
+        // the search with no events allocated
+        AllocationSearch search = new AllocationSearch(events, venues);
+        search.setDeadline(timeout);
+        return new BranchAndBoundSearch(search).run();
     }
 
     /**
-     * Returns the traffic caused by the given allocation.
+     * <p>
+     * Returns the first safe allocation of events to venues found by the same
+     * search as allocate, if there is at least one possible safe allocation.
+     * </p>
+     * 
+     * <p>
+     * Unlike allocate, the result also records the peak utilisation of the
+     * allocation found, and how many nodes the search explored and pruned (a
+     * node is pruned when hosting an event at a venue would be unsafe). The
+     * search allocates the events in the given event order, and tries the
+     * venues for each event in the given venue order.
+     * </p>
      * 
-     * @requires allocation!=null && the keys in allocation are not null and
-     *           each event in keySet of allocation maps to a non-null venue
-     *           that can host that event.
-     * @ensures returns the traffic caused by the given allocation.
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues &&
+     *          eventOrder != null && venueOrder != null
+     * @ensure Returns a result holding a safe allocation of events to venues,
+     *         if there is at least one possible safe allocation, or a result
+     *         with a null allocation otherwise.
      */
-    private static Traffic getUsageOf(Map<Event, Venue> allocation) {
-        Traffic result = new Traffic();
-        for (Event event : allocation.keySet()) {
-            Venue venue = allocation.get(event);
-            result.addTraffic(venue.getTraffic(event));
+    public static AllocationResult firstAllocation(List<Event> events,
+            List<Venue> venues, EventOrder eventOrder, VenueOrder venueOrder) {
+        // the search with no events allocated, and the work it does
+        AllocationSearch search = new AllocationSearch(events, venues,
+                eventOrder, venueOrder);
+        SearchStatistics statistics = new SearchStatistics();
+        search.setStatistics(statistics);
+        // the allocation found
+        Map<Event, Venue> allocation = search.first();
+        if (allocation == null) {
+            return new AllocationResult(null, Double.NaN, statistics);
         }
-        return result;
+        return new AllocationResult(allocation, search.peakUtilisation(),
+                statistics);
+    }
+
+    /**
+     * <p>
+     * Returns the safe allocation of events to venues that has the lowest
+     * peak utilisation, i.e. the lowest greatest ratio of traffic to capacity
+     * over all of the corridors, if there is at least one possible safe
+     * allocation.
+     * </p>
+     * 
+     * <p>
+     * The allocation is found by a branch-and-bound search, and the result
+     * also records how many nodes the search explored and pruned. The search
+     * allocates the events in the given event order, and tries the venues for
+     * each event in the given venue order.
+     * </p>
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues &&
+     *          eventOrder != null && venueOrder != null
+     * @ensure Returns a result holding a safe allocation of events to venues
+     *         with the lowest possible peak utilisation, if there is at least
+     *         one possible safe allocation, or a result with a null
+     *         allocation otherwise.
+     */
+    public static AllocationResult optimalAllocation(List<Event> events,
+            List<Venue> venues, EventOrder eventOrder, VenueOrder venueOrder) {
+        return new BranchAndBoundSearch(new AllocationSearch(events, venues,
+                eventOrder, venueOrder)).run();
     }
 
     /**
-     * Returns true if the traffic caused by the given allocation is safe, and
-     * false otherwise.
+     * <p>
+     * Returns the set of all possible safe allocations of events to venues.
+     * </p>
      * 
-     * @requires allocation!=null && the keys in allocation are not null and
-     *           each event in keySet of allocation maps to a non-null venue
-     *           that can host that event.
-     * @ensures returns whether or not the traffic in the given allocation is
-     *          safe.
+     * <p>
+     * Unlike allocate, this method enumerates every safe allocation, which can
+     * take a very long time and a large amount of memory for even a moderate
+     * number of events and venues. It should only be used by callers that
+     * really need every solution.
+     * </p>
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Returns the set of all possible safe allocations of events to
+     *         venues, or an empty set if there are no possible safe
+     *         allocations. Parameters events and venues are not modified.
      */
-    private static boolean safeTraffic(Map<Event, Venue> allocation) {
-        Traffic traffic = getUsageOf(allocation);
-        return traffic.isSafe();
+    public static Set<Map<Event, Venue>> allAllocations(List<Event> events,
+            List<Venue> venues) {
+        return new AllocationSearch(events, venues).all();
     }
 
 }
@@ -0,0 +1,204 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * A heuristic solver that searches for a safe allocation of events to venues
+ * by simulated annealing, for problems too large for an exact search to
+ * finish.
+ * </p>
+ *
+ * <p>
+ * The search starts from an allocation of each event to a different venue
+ * that can host it (a matching, which may be unsafe), and tries to reduce its
+ * overflow, i.e. the total amount by which traffic exceeds capacity over all
+ * corridors. Each step picks a random event and a random venue that can host
+ * it, and moves the event there (swapping it with the event at that venue, if
+ * there is one and it fits where the first event was). A step that does not
+ * increase the overflow is always kept. A step that increases it by d is kept
+ * with probability exp(-d / T), where the temperature T falls geometrically
+ * from the initial temperature to the final temperature over the steps. The
+ * search stops as soon as the overflow is zero, i.e. the allocation is safe,
+ * or after the given number of steps.
+ * </p>
+ *
+ * <p>
+ * The random choices are made by a generator with the given seed, so the same
+ * problem always gives the same result. The solver is not exact: it can fail
+ * to find a safe allocation that exists. In the result, each step counts as a
+ * node explored, and each step that is undone (or cannot be made) as a node
+ * pruned.
+ * </p>
+ */
+public class AnnealingSolver implements AllocationSolver {
+
+    // the defaults for the parameters of the search
+    final static long DEFAULT_STEPS = 1_000_000;
+    final static double DEFAULT_INITIAL_TEMPERATURE = 10;
+    final static double DEFAULT_FINAL_TEMPERATURE = 0.01;
+    final static long DEFAULT_SEED = 2017;
+
+    // the greatest number of steps taken by the search
+    private long steps;
+    // the temperature at the first and last steps
+    private double initialTemperature;
+    private double finalTemperature;
+    // the seed of the random choices
+    private long seed;
+
+    /*
+     * invariant: steps >= 0 && initialTemperature >= finalTemperature > 0
+     */
+
+    /**
+     * Creates a solver that takes up to a million steps, cooling from a
+     * temperature of 10 to 0.01.
+     */
+    public AnnealingSolver() {
+        this(DEFAULT_STEPS, DEFAULT_INITIAL_TEMPERATURE,
+                DEFAULT_FINAL_TEMPERATURE, DEFAULT_SEED);
+    }
+
+    /**
+     * Creates a solver with the given parameters.
+     *
+     * @param steps
+     *            the greatest number of steps the search takes
+     * @param initialTemperature
+     *            the temperature at the first step
+     * @param finalTemperature
+     *            the temperature at the last step
+     * @param seed
+     *            the seed of the random choices
+     * @throws IllegalArgumentException
+     *             if steps is less than zero, finalTemperature is not greater
+     *             than zero, or initialTemperature is less than
+     *             finalTemperature
+     */
+    public AnnealingSolver(long steps, double initialTemperature,
+            double finalTemperature, long seed) {
+        if (steps < 0) {
+            throw new IllegalArgumentException(
+                    "The number of steps cannot be less than 0.");
+        }
+        if (!(finalTemperature > 0)
+                || !(initialTemperature >= finalTemperature)) {
+            throw new IllegalArgumentException("The temperatures must be"
+                    + " greater than 0, and cannot rise.");
+        }
+        this.steps = steps;
+        this.initialTemperature = initialTemperature;
+        this.finalTemperature = finalTemperature;
+        this.seed = seed;
+    }
+
+    @Override
+    public AllocationResult solve(List<Event> events, List<Venue> venues) {
+        AllocationProblem problem = new AllocationProblem(events, venues);
+        SearchStatistics statistics = new SearchStatistics();
+        // the starting allocation
+        int[] matching = EventMatching.coveringMatching(problem);
+        if (matching == null) {
+            return new AllocationResult(null, Double.NaN, statistics);
+        }
+        Assignment assignment = new Assignment(problem);
+        for (int e = 0; e < matching.length; e++) {
+            assignment.place(e, matching[e]);
+        }
+
+        // the venues that can host each event
+        int[][] candidates = new int[problem.eventCount()][];
+        for (int e = 0; e < candidates.length; e++) {
+            candidates[e] = candidateVenues(problem, e);
+        }
+        Random random = new Random(seed);
+        double temperature = initialTemperature;
+        // the factor by which the temperature falls at each step
+        double cooling = Math.pow(finalTemperature / initialTemperature, 1.0
+                / Math.max(1, steps - 1));
+        for (long step = 0; step < steps && assignment.overflow() > 0;
+                step++, temperature *= cooling) {
+            statistics.nodeExplored();
+            int e = random.nextInt(candidates.length);
+            // the venue the event is moved from and to, and the event it is
+            // swapped with (if any)
+            int u = assignment.venueOf(e);
+            int v = candidates[e][random.nextInt(candidates[e].length)];
+            int f = assignment.eventAt(v);
+            if (v == u || (f >= 0 && problem.demand(f, u) == null)) {
+                statistics.nodePruned();
+                continue;
+            }
+            long before = assignment.overflow();
+            move(assignment, e, u, f, v);
+            long increase = assignment.overflow() - before;
+            if (increase > 0 && random.nextDouble() >= Math.exp(-increase
+                    / temperature)) {
+                move(assignment, e, v, f, u);
+                statistics.nodePruned();
+            }
+        }
+        if (assignment.overflow() > 0) {
+            return new AllocationResult(null, Double.NaN, statistics);
+        }
+        return new AllocationResult(assignment.toAllocation(), assignment
+                .peakUtilisation(), statistics);
+    }
+
+    @Override
+    public boolean isExact() {
+        return false;
+    }
+
+    /**
+     * Returns the venue numbers that can host event number e, in increasing
+     * order.
+     */
+    private static int[] candidateVenues(AllocationProblem problem, int e) {
+        long[] compatible = problem.compatibleVenues(e);
+        int count = 0;
+        for (long word : compatible) {
+            count += Long.bitCount(word);
+        }
+        int[] result = new int[count];
+        count = 0;
+        for (int w = 0; w < compatible.length; w++) {
+            for (long word = compatible[w]; word != 0; word &= word - 1) {
+                result[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Moves event number e from venue number from to venue number to, and
+     * event number f (if f is not -1) from venue number to to venue number
+     * from.
+     *
+     * @require e is assigned to from, and f is assigned to to (or f == -1
+     *          and to is unassigned), and the venues can host the events
+     *          moved to them
+     */
+    private static void move(Assignment assignment, int e, int from, int f,
+            int to) {
+        assignment.remove(e);
+        if (f >= 0) {
+            assignment.remove(f);
+            assignment.place(f, from);
+        }
+        assignment.place(e, to);
+    }
+
+    /**
+     * The string representation is of the form "annealing (STEPS steps,
+     * temperature INITIAL to FINAL, seed SEED)".
+     */
+    @Override
+    public String toString() {
+        return "annealing (" + steps + " steps, temperature "
+                + initialTemperature + " to " + finalTemperature + ", seed "
+                + seed + ")";
+    }
+
+}
@@ -0,0 +1,180 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * A mutable allocation of some or all of the events of an AllocationProblem
+ * to different venues that can host them, used by the heuristic solvers.
+ * </p>
+ *
+ * <p>
+ * Unlike AllocationSearch, an assignment may be unsafe: it keeps a running
+ * record of the traffic on each corridor, and of the total overflow, i.e. the
+ * sum over all corridors of the amount by which the traffic on the corridor
+ * exceeds its capacity. The assignment is safe iff its overflow is zero.
+ * </p>
+ */
+final class Assignment {
+
+    // the problem whose events are assigned
+    private final AllocationProblem problem;
+    // the venue number assigned to each event, or -1 if it is unassigned
+    private final int[] venueOf;
+    // the event number assigned to each venue, or -1 if it is unassigned
+    private final int[] eventAt;
+    // the traffic on each corridor caused by the events assigned
+    private final int[] load;
+    // the total overflow of the corridors
+    private long overflow;
+
+    /*
+     * invariant:
+     *
+     * venueOf and eventAt are inverses of each other on the events and
+     * venues that are assigned, and venueOf[e] can host event e &&
+     *
+     * load is the traffic caused by the events assigned && overflow is the
+     * sum over all corridors c of max(0, load[c] -
+     * problem.corridorCapacity(c))
+     */
+
+    /**
+     * Creates an assignment for the given problem in which no event is
+     * assigned.
+     *
+     * @require problem != null
+     */
+    Assignment(AllocationProblem problem) {
+        this.problem = problem;
+        venueOf = new int[problem.eventCount()];
+        eventAt = new int[problem.venueCount()];
+        load = new int[problem.corridorCount()];
+        Arrays.fill(venueOf, -1);
+        Arrays.fill(eventAt, -1);
+    }
+
+    /**
+     * Returns the venue number assigned to event number e, or -1 if it is
+     * unassigned.
+     *
+     * @require 0 <= e < problem.eventCount()
+     */
+    int venueOf(int e) {
+        return venueOf[e];
+    }
+
+    /**
+     * Returns the event number assigned to venue number v, or -1 if it is
+     * unassigned.
+     *
+     * @require 0 <= v < problem.venueCount()
+     */
+    int eventAt(int v) {
+        return eventAt[v];
+    }
+
+    /**
+     * Returns the total overflow of the corridors.
+     */
+    long overflow() {
+        return overflow;
+    }
+
+    /**
+     * Returns true if event number e can be assigned to venue number v
+     * without any corridor of the venue exceeding its capacity, i.e. if the
+     * venue is unassigned and can host the event, and the traffic from it
+     * fits.
+     *
+     * @require 0 <= e < problem.eventCount() && 0 <= v < problem.venueCount()
+     */
+    boolean fits(int e, int v) {
+        int[] traffic = problem.demand(e, v);
+        if (eventAt[v] >= 0 || traffic == null) {
+            return false;
+        }
+        int[] corridors = problem.venueCorridors(v);
+        for (int i = 0; i < corridors.length; i++) {
+            if (load[corridors[i]] + traffic[i] > problem.corridorCapacity(
+                    corridors[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the greatest ratio of traffic to capacity over the corridors of
+     * venue number v, if event number e were assigned to it.
+     *
+     * @require venue number v can host event number e
+     */
+    double peakWith(int e, int v) {
+        int[] traffic = problem.demand(e, v);
+        int[] corridors = problem.venueCorridors(v);
+        double peak = 0;
+        for (int i = 0; i < corridors.length; i++) {
+            peak = Math.max(peak, (double) (load[corridors[i]] + traffic[i])
+                    / problem.corridorCapacity(corridors[i]));
+        }
+        return peak;
+    }
+
+    /**
+     * Assigns event number e to venue number v, whether or not the traffic
+     * from it fits.
+     *
+     * @require event number e and venue number v are unassigned, and the
+     *          venue can host the event
+     */
+    void place(int e, int v) {
+        venueOf[e] = v;
+        eventAt[v] = e;
+        addLoad(v, problem.demand(e, v), 1);
+    }
+
+    /**
+     * Unassigns event number e from its venue.
+     *
+     * @require event number e is assigned
+     */
+    void remove(int e) {
+        int v = venueOf[e];
+        addLoad(v, problem.demand(e, v), -1);
+        venueOf[e] = -1;
+        eventAt[v] = -1;
+    }
+
+    /**
+     * Returns the assignment as a map from events to venues.
+     *
+     * @require every event is assigned
+     */
+    Map<Event, Venue> toAllocation() {
+        return problem.toAllocation(venueOf);
+    }
+
+    /**
+     * Returns the peak utilisation of the assignment.
+     */
+    double peakUtilisation() {
+        return problem.peakUtilisation(load);
+    }
+
+    /**
+     * Adds sign times the given traffic to the corridors of venue number v,
+     * updating the overflow.
+     */
+    private void addLoad(int v, int[] traffic, int sign) {
+        int[] corridors = problem.venueCorridors(v);
+        for (int i = 0; i < corridors.length; i++) {
+            int c = corridors[i];
+            int capacity = problem.corridorCapacity(c);
+            overflow -= Math.max(0, load[c] - capacity);
+            load[c] += sign * traffic[i];
+            overflow += Math.max(0, load[c] - capacity);
+        }
+    }
+
+}
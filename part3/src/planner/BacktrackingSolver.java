@@ -0,0 +1,91 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * An exact solver that searches every allocation of events to venues by
+ * backtracking, as Allocator does.
+ * </p>
+ *
+ * <p>
+ * The solver either returns the first safe allocation it finds (as
+ * Allocator.firstAllocation does), or searches for the safe allocation with
+ * the lowest peak utilisation by branch and bound (as
+ * Allocator.optimalAllocation does).
+ * </p>
+ */
+public class BacktrackingSolver implements AllocationSolver {
+
+    // the order in which events are allocated
+    private EventOrder eventOrder;
+    // the order in which venues are tried for each event
+    private VenueOrder venueOrder;
+    // whether to search for the allocation with the lowest peak utilisation
+    private boolean optimal;
+
+    /*
+     * invariant: eventOrder != null && venueOrder != null
+     */
+
+    /**
+     * Creates a solver that returns the first safe allocation it finds,
+     * allocating the events and trying the venues in the order they are
+     * given.
+     */
+    public BacktrackingSolver() {
+        this(EventOrder.GIVEN, VenueOrder.GIVEN, false);
+    }
+
+    /**
+     * Creates a solver that allocates the events in the given event order,
+     * and tries the venues for each event in the given venue order.
+     *
+     * @param eventOrder
+     *            the order in which to allocate the events
+     * @param venueOrder
+     *            the order in which to try the venues for each event
+     * @param optimal
+     *            true if the solver should search for the safe allocation
+     *            with the lowest peak utilisation, rather than returning the
+     *            first safe allocation it finds
+     * @throws NullPointerException
+     *             if eventOrder or venueOrder is null
+     */
+    public BacktrackingSolver(EventOrder eventOrder, VenueOrder venueOrder,
+            boolean optimal) {
+        if (eventOrder == null || venueOrder == null) {
+            throw new NullPointerException(
+                    "The event and venue orders cannot be null.");
+        }
+        this.eventOrder = eventOrder;
+        this.venueOrder = venueOrder;
+        this.optimal = optimal;
+    }
+
+    @Override
+    public AllocationResult solve(List<Event> events, List<Venue> venues) {
+        if (optimal) {
+            return Allocator.optimalAllocation(events, venues, eventOrder,
+                    venueOrder);
+        }
+        return Allocator.firstAllocation(events, venues, eventOrder,
+                venueOrder);
+    }
+
+    @Override
+    public boolean isExact() {
+        return true;
+    }
+
+    /**
+     * The string representation is of the form "backtracking (EVENT_ORDER,
+     * VENUE_ORDER)" or "optimal (EVENT_ORDER, VENUE_ORDER)".
+     */
+    @Override
+    public String toString() {
+        return (optimal ? "optimal" : "backtracking") + " (" + eventOrder
+                + ", " + venueOrder + ")";
+    }
+
+}
@@ -0,0 +1,221 @@
+package planner;
+
+/**
+ * <p>
+ * A branch-and-bound search for the safe allocation of the events of an
+ * AllocationProblem to its venues that has the lowest peak utilisation (i.e.
+ * the lowest greatest ratio of traffic to capacity over all corridors).
+ * </p>
+ * 
+ * <p>
+ * At each node of the search, a lower bound is computed on the peak
+ * utilisation of every allocation that extends the node's partial allocation:
+ * the greatest of the current peak utilisation and, for each event still to
+ * be allocated, the least peak utilisation that allocating the event to any
+ * available venue would cause on its own. Adding events never lowers the
+ * traffic on a corridor, so this bound never overestimates. The node is
+ * pruned if the bound is not lower than the peak utilisation of the best
+ * allocation found so far.
+ * </p>
+ * 
+ * <p>
+ * Utilisations are compared exactly, as fractions of traffic over capacity.
+ * </p>
+ */
+final class BranchAndBoundSearch {
+
+    // the search that records the current partial allocation
+    private final AllocationSearch search;
+    // the problem being searched
+    private final AllocationProblem problem;
+    // the work done by the search
+    private final SearchStatistics statistics;
+
+    // the best allocation found so far, or null if none has been found
+    private int[] best;
+    // the peak utilisation of the best allocation, as a fraction
+    private long bestTraffic;
+    private long bestCapacity;
+
+    /*
+     * the traffic and capacity of the fraction last computed by peakWith or
+     * lowerBound
+     */
+    private long boundTraffic;
+    private long boundCapacity;
+
+    /**
+     * Creates a new branch-and-bound search of the given problem.
+     * 
+     * @require search != null && no event has been allocated in search
+     */
+    BranchAndBoundSearch(AllocationSearch search) {
+        this.search = search;
+        problem = search.getProblem();
+        statistics = new SearchStatistics();
+    }
+
+    /**
+     * Runs the search, and returns the safe allocation with the lowest peak
+     * utilisation, or a result with no allocation if there is no safe
+     * allocation.
+     * 
+     * @ensure Returns the result of the search. If the search is stopped
+     *         early, the result holds the best allocation found before it was
+     *         stopped, and is marked as timed out if it was stopped by the
+     *         deadline of search.
+     */
+    AllocationResult run() {
+        if (EventMatching.coversEveryEvent(problem)) {
+            branch(0);
+        }
+        if (best == null) {
+            return new AllocationResult(null, Double.NaN, statistics, search
+                    .hasTimedOut());
+        }
+        return new AllocationResult(problem.toAllocation(best),
+                (double) bestTraffic / bestCapacity, statistics, search
+                        .hasTimedOut());
+    }
+
+    /**
+     * Explores the allocations that extend the current partial allocation of
+     * the events before position index, recording any that is better than
+     * the best allocation found so far.
+     * 
+     * @require exactly the events before position index have been allocated
+     *          (safely) in search
+     * @ensure The partial allocation is left as it was given.
+     */
+    private void branch(int index) {
+        if (search.isStopped()) {
+            return;
+        }
+        statistics.nodeExplored();
+
+        /* BASE CASE: no more events to allocate */
+        if (index == problem.eventCount()) {
+            currentPeak();
+            if (best == null || isBelowBest()) {
+                best = search.getAssignment();
+                bestTraffic = boundTraffic;
+                bestCapacity = boundCapacity;
+            }
+            return;
+        }
+
+        /* RECURSIVE CASE: prune the node, or try each venue for the event */
+        if (best != null && (!lowerBound(index) || !isBelowBest())) {
+            statistics.nodePruned();
+            return;
+        }
+        for (int k = search.nextCandidate(index, 0); k >= 0; k = search
+                .nextCandidate(index, k + 1)) {
+            // the kth venue to try for the event
+            int v = search.candidateVenue(index, k);
+            if (search.place(index, v)) {
+                branch(index + 1);
+                search.remove(index, v);
+            }
+        }
+    }
+
+    /**
+     * Sets the bound fraction to the current peak utilisation of the partial
+     * allocation.
+     */
+    private void currentPeak() {
+        boundTraffic = 0;
+        boundCapacity = 1;
+        for (int c = 0; c < problem.corridorCount(); c++) {
+            raiseBound(search.getLoad(c), problem.corridorCapacity(c));
+        }
+    }
+
+    /**
+     * Sets the bound fraction to a lower bound on the peak utilisation of
+     * every safe allocation extending the current partial allocation of the
+     * events before position index. Returns false if some event from position
+     * index onwards cannot be allocated safely to any available venue (i.e.
+     * there is no such allocation), and true otherwise.
+     */
+    private boolean lowerBound(int index) {
+        currentPeak();
+        // the bound from the events before index
+        long traffic = boundTraffic;
+        long capacity = boundCapacity;
+        for (int e = index; e < problem.eventCount(); e++) {
+            // the least peak caused by the event at any available venue
+            long leastTraffic = -1;
+            long leastCapacity = 1;
+            for (int k = search.nextCandidate(e, 0); k >= 0; k = search
+                    .nextCandidate(e, k + 1)) {
+                if (peakWith(e, search.candidateVenue(e, k))
+                        && (leastTraffic < 0 || boundTraffic
+                                * leastCapacity < leastTraffic
+                                        * boundCapacity)) {
+                    leastTraffic = boundTraffic;
+                    leastCapacity = boundCapacity;
+                }
+            }
+            if (leastTraffic < 0) {
+                return false;
+            }
+            if (leastTraffic * capacity > traffic * leastCapacity) {
+                traffic = leastTraffic;
+                capacity = leastCapacity;
+            }
+        }
+        boundTraffic = traffic;
+        boundCapacity = capacity;
+        return true;
+    }
+
+    /**
+     * Sets the bound fraction to the peak utilisation, over the corridors of
+     * venue number v, of the current traffic plus the traffic of event
+     * number e at that venue. Returns false if that would push a corridor
+     * over its capacity, and true otherwise.
+     * 
+     * @require venue number v can host event number e
+     */
+    private boolean peakWith(int e, int v) {
+        int[] corridors = problem.venueCorridors(v);
+        int[] traffic = problem.demand(e, v);
+        boundTraffic = 0;
+        boundCapacity = 1;
+        for (int i = 0; i < corridors.length; i++) {
+            // the traffic on the corridor with the event at the venue
+            int total = search.getLoad(corridors[i]) + traffic[i];
+            int capacity = problem.corridorCapacity(corridors[i]);
+            if (total > capacity) {
+                return false;
+            }
+            raiseBound(total, capacity);
+        }
+        return true;
+    }
+
+    /**
+     * Raises the bound fraction to traffic / capacity, if that is greater.
+     * 
+     * @require traffic >= 0 && capacity > 0
+     */
+    private void raiseBound(long traffic, long capacity) {
+        if (traffic * boundCapacity > boundTraffic * capacity) {
+            boundTraffic = traffic;
+            boundCapacity = capacity;
+        }
+    }
+
+    /**
+     * Returns true if the bound fraction is less than the peak utilisation of
+     * the best allocation found so far.
+     * 
+     * @require best != null
+     */
+    private boolean isBelowBest() {
+        return boundTraffic * bestCapacity < bestTraffic * boundCapacity;
+    }
+
+}
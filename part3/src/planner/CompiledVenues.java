@@ -0,0 +1,229 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * An immutable, compiled description of a list of venues, in the form used to
+ * build AllocationProblems.
+ * </p>
+ *
+ * <p>
+ * The venues are numbered by their positions in the list they are compiled
+ * from, and the corridors used by the venues are numbered from zero. For each
+ * venue, the numbers of its corridors and the traffic on each of them from an
+ * event of maximum size are recorded in int arrays, so the traffic of an
+ * event of any size at the venue can be computed without looking up or
+ * creating any objects. The venues are also sorted by capacity, so the
+ * venues that can host an event are found by a binary search rather than by
+ * checking every venue.
+ * </p>
+ *
+ * <p>
+ * Since compiled venues are never modified after they are created, they can
+ * be shared by any number of problems, in any number of threads.
+ * </p>
+ */
+final class CompiledVenues {
+
+    // the venues, in the order they were given
+    private final Venue[] venues;
+    // the capacity of each venue
+    private final int[] capacities;
+    // the numbers of the corridors with traffic from each venue
+    private final int[][] venueCorridors;
+    // the traffic on those corridors from an event of maximum size at each
+    // venue (at the same positions as in venueCorridors)
+    private final int[][] capacityTraffic;
+    // the capacity of each corridor, indexed by corridor number
+    private final int[] corridorCapacities;
+    // the venue numbers in order of decreasing capacity
+    private final int[] byCapacity;
+
+    /*
+     * invariant:
+     *
+     * venues, capacities, venueCorridors and capacityTraffic have one entry
+     * for each venue, and corridorCapacities one entry for each corridor &&
+     *
+     * for each venue v, venueCorridors[v].length ==
+     * capacityTraffic[v].length &&
+     *
+     * byCapacity holds each venue number once, and capacities[byCapacity[i]]
+     * >= capacities[byCapacity[i + 1]] for each i
+     */
+
+    /**
+     * Compiles the given venues.
+     *
+     * @require venues != null && !venues.contains(null) && venues does not
+     *          contain duplicate venues
+     * @ensure Creates the compiled form of the given venues. The list is not
+     *         modified.
+     */
+    CompiledVenues(List<Venue> venues) {
+        this.venues = venues.toArray(new Venue[venues.size()]);
+        capacities = new int[this.venues.length];
+
+        // the number of each corridor numbered so far, keyed by its registry
+        // id (the registry holds every corridor ever seen, so it is not used
+        // to size arrays)
+        Map<Integer, Integer> numbers = new HashMap<>();
+        // the capacities of the corridors numbered so far, by number
+        List<Integer> corridorCapacities = new ArrayList<>();
+
+        venueCorridors = new int[this.venues.length][];
+        capacityTraffic = new int[this.venues.length][];
+        for (int v = 0; v < this.venues.length; v++) {
+            capacities[v] = this.venues[v].getCapacity();
+            // the traffic of an event of maximum size at the venue
+            Traffic traffic = this.venues[v].getCapacityTraffic();
+            venueCorridors[v] = new int[traffic.corridorCount()];
+            capacityTraffic[v] = new int[traffic.corridorCount()];
+            for (int i = 0; i < traffic.corridorCount(); i++) {
+                // the number of the corridor
+                Integer number = numbers.get(traffic.idAt(i));
+                if (number == null) {
+                    number = corridorCapacities.size();
+                    numbers.put(traffic.idAt(i), number);
+                    corridorCapacities.add(traffic.corridorAt(i)
+                            .getCapacity());
+                }
+                venueCorridors[v][i] = number;
+                capacityTraffic[v][i] = traffic.amountAt(i);
+            }
+        }
+        this.corridorCapacities = new int[corridorCapacities.size()];
+        for (int c = 0; c < corridorCapacities.size(); c++) {
+            this.corridorCapacities[c] = corridorCapacities.get(c);
+        }
+
+        // the venue numbers, sorted by decreasing capacity
+        Integer[] sorted = new Integer[this.venues.length];
+        for (int v = 0; v < this.venues.length; v++) {
+            sorted[v] = v;
+        }
+        Arrays.sort(sorted, (v1, v2) -> Integer.compare(capacities[v2],
+                capacities[v1]));
+        byCapacity = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            byCapacity[i] = sorted[i];
+        }
+    }
+
+    /**
+     * Returns the number of venues.
+     *
+     * @return the number of venues
+     */
+    int venueCount() {
+        return venues.length;
+    }
+
+    /**
+     * Returns venue number v.
+     *
+     * @require 0 <= v < venueCount()
+     * @return venue number v
+     */
+    Venue venue(int v) {
+        return venues[v];
+    }
+
+    /**
+     * Returns the venues, in the order they were compiled.
+     *
+     * @return a new list of the venues
+     */
+    List<Venue> venues() {
+        return new ArrayList<>(Arrays.asList(venues));
+    }
+
+    /**
+     * Returns the number of corridors with traffic from the venues.
+     *
+     * @return the number of corridors
+     */
+    int corridorCount() {
+        return corridorCapacities.length;
+    }
+
+    /**
+     * Returns the capacities of the corridors, indexed by corridor number.
+     * The array returned is shared, and must not be modified.
+     *
+     * @return the capacity of each corridor
+     */
+    int[] corridorCapacities() {
+        return corridorCapacities;
+    }
+
+    /**
+     * Returns the numbers of the corridors with traffic from venue number v.
+     * The array returned is shared, and must not be modified.
+     *
+     * @require 0 <= v < venueCount()
+     * @return the numbers of the corridors with traffic from venue number v
+     */
+    int[] venueCorridors(int v) {
+        return venueCorridors[v];
+    }
+
+    /**
+     * Returns true if venue number v can host an event of the given size.
+     *
+     * @require 0 <= v < venueCount() && size > 0
+     * @return true iff the capacity of venue number v is at least size
+     */
+    boolean canHost(int v, int size) {
+        return size <= capacities[v];
+    }
+
+    /**
+     * Returns a new bit set (in words of 64 bits) of the venues that can host
+     * an event of the given size: bit v of the set is bit (v % 64) of word
+     * (v / 64), and is set iff venue number v can host the event.
+     *
+     * @require size > 0
+     * @return a new bit set of the venues with a capacity of at least size
+     */
+    long[] compatibleVenues(int size) {
+        // the venues before position high in byCapacity can host the event,
+        // and those from position low on cannot
+        int high = 0;
+        int low = byCapacity.length;
+        while (high < low) {
+            int middle = (high + low) >>> 1;
+            if (capacities[byCapacity[middle]] >= size) {
+                high = middle + 1;
+            } else {
+                low = middle;
+            }
+        }
+        long[] result = new long[AllocationProblem.wordCount(venues.length)];
+        for (int i = 0; i < high; i++) {
+            result[byCapacity[i] >>> 6] |= 1L << byCapacity[i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the traffic from hosting an event of the given size at venue
+     * number v, on each of the corridors returned by venueCorridors(v).
+     *
+     * @require 0 <= v < venueCount() && canHost(v, size)
+     * @ensure Returns a new array of the traffic on each corridor of the
+     *         venue, which is (size * X) / C, where C is the capacity of the
+     *         venue and X is the traffic on the corridor from an event of
+     *         size C at the venue (as it is for Venue.getTraffic).
+     */
+    int[] demand(int v, int size) {
+        int[] traffic = capacityTraffic[v];
+        int[] result = new int[traffic.length];
+        for (int i = 0; i < traffic.length; i++) {
+            result[i] = (size * traffic[i]) / capacities[v];
+        }
+        return result;
+    }
+
+}
@@ -15,11 +15,20 @@ package planner;
 public class Corridor implements Comparable<Corridor> {
 
     // the location that the traffic corridor starts at
-    private Location start;
+    private final Location start;
     // the location that the traffic corridor ends at
-    private Location end;
+    private final Location end;
     // the maximum capacity of the corridor -- integer units represent people
-    private int capacity;
+    private final int capacity;
+    // the id given to this corridor by the CorridorRegistry and the
+    // registered corridor equal to this one, or -1 and null if it has not been
+    // looked up in the registry yet (these are caches, not part of the
+    // corridor's state, so the class is still immutable). They may be set by
+    // any thread: registered is volatile so that a thread that reads it also
+    // sees the registered corridor's locations, and registryId is read on
+    // its own, so a thread that sees -1 just looks the corridor up again.
+    private volatile Corridor registered;
+    private int registryId = -1;
 
     /*
      * invariant:
@@ -127,10 +136,17 @@ public class Corridor implements Comparable<Corridor> {
      */
     @Override
     public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
         if (!(object instanceof Corridor)) {
             return false;
         }
         Corridor other = (Corridor) object; // the corridor to compare
+        if (registryId >= 0 && other.registryId >= 0) {
+            // equal corridors have the same registry id
+            return registryId == other.registryId;
+        }
         return start.equals(other.start) && end.equals(other.end)
                 && capacity == other.capacity;
     }
@@ -171,6 +187,9 @@ public class Corridor implements Comparable<Corridor> {
      */
     @Override
     public int compareTo(Corridor other) {
+        if (this == other) {
+            return 0;
+        }
         int result = start.compareTo(other.start);
         if (result == 0) {
             result = end.compareTo(other.end);
@@ -181,6 +200,40 @@ public class Corridor implements Comparable<Corridor> {
         return result;
     }
 
+    /**
+     * Returns the id given to this corridor by the CorridorRegistry, or -1 if
+     * the corridor has not been registered.
+     * 
+     * @return the registry id of this corridor, or -1 if it has none
+     */
+    int getRegistryId() {
+        return registryId;
+    }
+
+    /**
+     * Returns the corridor registered in the CorridorRegistry that is equal to
+     * this corridor, or null if the corridor has not been looked up in the
+     * registry.
+     * 
+     * @return the registered corridor equal to this one, or null
+     */
+    Corridor getRegistered() {
+        return registered;
+    }
+
+    /**
+     * Records the corridor registered in the CorridorRegistry that is equal
+     * to this corridor, and the id the registry has given it.
+     * 
+     * @require registered != null && registered.equals(this) && registryId >=
+     *          0 && registryId is the id that the registry has given to
+     *          corridors equal to this one
+     */
+    void setRegistered(Corridor registered, int registryId) {
+        this.registered = registered;
+        this.registryId = registryId;
+    }
+
     /**
      * <p>
      * Determines whether this class is internally consistent (i.e. it satisfies
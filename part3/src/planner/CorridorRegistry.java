@@ -0,0 +1,129 @@
+package planner;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * A registry that gives each distinct traffic corridor a stable integer id.
+ * </p>
+ * 
+ * <p>
+ * Corridors that are equal (according to the equals method of the Corridor
+ * class) are given the same id, and ids are never reused. Since the registry
+ * holds every corridor ever registered, ids should be used as keys, not as
+ * indices into arrays sized by the registry.
+ * </p>
+ * 
+ * <p>
+ * The registry also interns corridors: the registered corridor equal to a
+ * corridor is shared by everything that records traffic on it, and its start
+ * and end locations are the ones interned by the LocationRegistry.
+ * </p>
+ * 
+ * <p>
+ * The id of a corridor, and the registered corridor equal to it, are cached in
+ * the corridor itself once it has been looked up, so after the first lookup
+ * neither needs to hash or compare corridors at all.
+ * </p>
+ */
+final class CorridorRegistry {
+
+    // the registered corridor that is equal to each corridor
+    private final static ConcurrentHashMap<Corridor, Corridor> REGISTERED =
+            new ConcurrentHashMap<>();
+    // the id that will be given to the next distinct corridor registered
+    private final static AtomicInteger NEXT_ID = new AtomicInteger(0);
+
+    /**
+     * This class only provides static methods.
+     */
+    private CorridorRegistry() {
+    }
+
+    /**
+     * Returns the id of the given corridor, registering it if no equal
+     * corridor has been registered before.
+     * 
+     * @param corridor
+     *            the corridor whose id will be returned
+     * @return the id of the given corridor
+     * @throws NullPointerException
+     *             if corridor is null
+     */
+    static int idOf(Corridor corridor) {
+        // the id cached in the corridor
+        int id = corridor.getRegistryId();
+        return (id >= 0 ? id : register(corridor).getRegistryId());
+    }
+
+    /**
+     * Returns the id of the given corridor, or -1 if no equal corridor has
+     * been registered. Unlike idOf, this never registers the corridor, so
+     * read-only queries do not grow the registry.
+     * 
+     * @param corridor
+     *            the corridor whose id will be returned
+     * @return the id of the given corridor, or -1 if it is not registered
+     * @throws NullPointerException
+     *             if corridor is null
+     */
+    static int lookup(Corridor corridor) {
+        // the id cached in the corridor
+        int id = corridor.getRegistryId();
+        if (id >= 0) {
+            return id;
+        }
+        // the registered corridor, if there is one
+        Corridor registered = REGISTERED.get(corridor);
+        if (registered == null) {
+            return -1;
+        }
+        corridor.setRegistered(registered, registered.getRegistryId());
+        return registered.getRegistryId();
+    }
+
+    /**
+     * Returns the registered corridor that is equal to the given corridor,
+     * registering a corridor equal to it if there is none.
+     * 
+     * @param corridor
+     *            the corridor to intern
+     * @return the registered corridor equal to the given corridor
+     * @throws NullPointerException
+     *             if corridor is null
+     */
+    static Corridor intern(Corridor corridor) {
+        // the registered corridor cached in the corridor
+        Corridor registered = corridor.getRegistered();
+        return (registered != null ? registered : register(corridor));
+    }
+
+    /**
+     * Returns the registered corridor that is equal to the given corridor,
+     * registering a corridor equal to it if there is none, and caches it (and
+     * its id) in the given corridor.
+     */
+    private static Corridor register(Corridor corridor) {
+        // the registered corridor, if there is one
+        Corridor registered = REGISTERED.get(corridor);
+        if (registered == null) {
+            // a corridor equal to the given one, between interned locations
+            Corridor candidate = corridor;
+            if (LocationRegistry.intern(corridor.getStart()) != corridor
+                    .getStart() || LocationRegistry.intern(corridor
+                            .getEnd()) != corridor.getEnd()) {
+                candidate = new Corridor(LocationRegistry.intern(corridor
+                        .getStart()), LocationRegistry.intern(corridor
+                                .getEnd()), corridor.getCapacity());
+            }
+            registered = REGISTERED.computeIfAbsent(candidate, c -> {
+                c.setRegistered(c, NEXT_ID.getAndIncrement());
+                return c;
+            });
+        }
+        corridor.setRegistered(registered, registered.getRegistryId());
+        return registered;
+    }
+
+}
@@ -0,0 +1,194 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * A bounded table of the dead ends met by an AllocationSearch: the nodes of
+ * the search from which no safe allocation could be completed.
+ * </p>
+ *
+ * <p>
+ * Whether a node can be completed depends only on the events still to be
+ * allocated (those from some position index onwards), the venues that are
+ * still available, and the traffic already on each corridor. Different
+ * partial allocations often leave the same residual problem (e.g. two events
+ * of the same size swapped between two venues), so a node whose state is in
+ * the table does not need to be explored again.
+ * </p>
+ *
+ * <p>
+ * A state is looked up by a 64-bit hash that the search keeps up to date as
+ * events are allocated and removed: the sum of a random key for each used
+ * venue, and of the traffic on each corridor times a random key for the
+ * corridor. The table stores the whole state alongside its hash, and only
+ * reports a dead end if the state is equal, so that a collision of hashes
+ * can never prune a node that could be completed. (For the same reason the
+ * traffic is not rounded: a node with less traffic than a dead end may still
+ * be completed.)
+ * </p>
+ *
+ * <p>
+ * When the table is full, the least recently used dead end is evicted. The
+ * lookups that were (and were not) answered from the table, and the dead
+ * ends evicted, are recorded in the statistics of the search.
+ * </p>
+ */
+final class DeadEndTable {
+
+    // an upper bound on the memory used by the entries of a table, in bytes
+    private final static long MEMORY_BUDGET = 32L << 20;
+    // the greatest number of entries kept by a table
+    private final static int MAXIMUM_SIZE = 1 << 18;
+    // the seed of the random keys, so that searches are repeatable
+    private final static long SEED = 2017;
+
+    // the random key of each venue and corridor
+    private final long[] venueKeys;
+    private final long[] corridorKeys;
+    // the maximum number of entries kept by the table
+    private final int maximumSize;
+    // the dead ends recorded, from least to most recently used
+    private final LinkedHashMap<State, State> entries;
+    // the record of the lookups made and entries evicted
+    private final SearchStatistics statistics;
+
+    /*
+     * invariant: maximumSize > 0 && entries.size() <= maximumSize
+     */
+
+    /**
+     * Creates an empty table for the dead ends of searches of the given
+     * problem, holding as many entries as fit in about 32 megabytes.
+     *
+     * @require problem != null && statistics != null
+     */
+    DeadEndTable(AllocationProblem problem, SearchStatistics statistics) {
+        this(problem, (int) Math.max(1, Math.min(MAXIMUM_SIZE, MEMORY_BUDGET
+                / entryBytes(problem))), statistics);
+    }
+
+    /**
+     * Creates an empty table for the dead ends of searches of the given
+     * problem, holding at most maximumSize entries.
+     *
+     * @require problem != null && maximumSize > 0 && statistics != null
+     */
+    DeadEndTable(AllocationProblem problem, int maximumSize,
+            SearchStatistics statistics) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        venueKeys = new long[problem.venueCount()];
+        for (int v = 0; v < venueKeys.length; v++) {
+            venueKeys[v] = random.nextLong();
+        }
+        corridorKeys = new long[problem.corridorCount()];
+        for (int c = 0; c < corridorKeys.length; c++) {
+            corridorKeys[c] = random.nextLong();
+        }
+        this.maximumSize = maximumSize;
+        this.statistics = statistics;
+        entries = new LinkedHashMap<State, State>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<State, State> eldest) {
+                if (size() > DeadEndTable.this.maximumSize) {
+                    DeadEndTable.this.statistics.deadEndEvicted();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns an estimate of the number of bytes taken by an entry of a table
+     * for the given problem.
+     */
+    private static long entryBytes(AllocationProblem problem) {
+        return 8L * AllocationProblem.wordCount(problem.venueCount()) + 4L
+                * problem.corridorCount() + 128;
+    }
+
+    /**
+     * Returns the amount by which allocating an event to venue number v
+     * changes the hash of the state, when the event's traffic on the venue's
+     * corridors is given by traffic.
+     *
+     * @require 0 <= v < venueCount && traffic is the demand of some event at
+     *          venue number v
+     */
+    long hashOf(int v, int[] corridors, int[] traffic) {
+        long hash = venueKeys[v];
+        for (int i = 0; i < corridors.length; i++) {
+            hash += traffic[i] * corridorKeys[corridors[i]];
+        }
+        return hash;
+    }
+
+    /**
+     * Returns true if the given state has been recorded as a dead end, and
+     * records the lookup in the statistics.
+     *
+     * @require hash is the hash of the state (used, load)
+     */
+    boolean contains(int index, long hash, long[] used, int[] load) {
+        if (entries.get(new State(index, hash, used, load)) != null) {
+            statistics.deadEndHit();
+            return true;
+        }
+        statistics.deadEndMissed();
+        return false;
+    }
+
+    /**
+     * Records the given state as a dead end, evicting the least recently used
+     * dead end if the table is full. The arrays are copied.
+     *
+     * @require hash is the hash of the state (used, load), and no safe
+     *          allocation extends a partial allocation of the events before
+     *          position index in that state
+     */
+    void add(int index, long hash, long[] used, int[] load) {
+        State state = new State(index, hash, used.clone(), load.clone());
+        entries.put(state, state);
+    }
+
+    /**
+     * The state of a node of the search.
+     */
+    private static final class State {
+
+        // the position of the next event to allocate
+        private final int index;
+        // the hash of the state
+        private final long hash;
+        // the bit set of the used venues, and the traffic on each corridor
+        private final long[] used;
+        private final int[] load;
+
+        private State(int index, long hash, long[] used, int[] load) {
+            this.index = index;
+            this.hash = hash;
+            this.used = used;
+            this.load = load;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof State)) {
+                return false;
+            }
+            State other = (State) object;
+            return hash == other.hash && index == other.index && Arrays
+                    .equals(used, other.used) && Arrays.equals(load,
+                            other.load);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash) * 31 + index;
+        }
+
+    }
+
+}
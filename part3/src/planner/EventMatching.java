@@ -0,0 +1,162 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * Finds a maximum matching of the events of an AllocationProblem to venues
+ * that can host them, using the Hopcroft-Karp algorithm.
+ * </p>
+ * 
+ * <p>
+ * Every safe allocation allocates each event to a different venue that can
+ * host it, so a safe allocation can only exist if there is a matching that
+ * covers every event. Checking for one takes polynomial time, so it can prove
+ * that there is no safe allocation without searching at all.
+ * </p>
+ */
+final class EventMatching {
+
+    // the value used for the distance of an unreachable event
+    private final static int INFINITY = Integer.MAX_VALUE;
+
+    // the problem whose events are being matched
+    private final AllocationProblem problem;
+    // the venue matched to each event, or -1 if it is unmatched
+    private final int[] eventMatch;
+    // the event matched to each venue, or -1 if it is unmatched
+    private final int[] venueMatch;
+    // the length of the shortest alternating path from an unmatched event to
+    // each event, in the current phase
+    private final int[] distance;
+
+    /**
+     * Creates a matching for the given problem, in which no event is matched.
+     * 
+     * @require problem != null
+     */
+    private EventMatching(AllocationProblem problem) {
+        this.problem = problem;
+        eventMatch = new int[problem.eventCount()];
+        venueMatch = new int[problem.venueCount()];
+        distance = new int[problem.eventCount()];
+        Arrays.fill(eventMatch, -1);
+        Arrays.fill(venueMatch, -1);
+    }
+
+    /**
+     * Returns true if each event of the given problem can be matched to a
+     * different venue that can host it, and false otherwise.
+     * 
+     * @require problem != null
+     * @ensure Returns true iff there is a matching of events to venues that
+     *         can host them that covers every event of the problem.
+     */
+    static boolean coversEveryEvent(AllocationProblem problem) {
+        return coveringMatching(problem) != null;
+    }
+
+    /**
+     * Returns a matching of each event of the given problem to a different
+     * venue that can host it, or null if there is no such matching.
+     * 
+     * @require problem != null
+     * @ensure Returns a new array holding the venue number matched to each
+     *         event number, if there is a matching that covers every event,
+     *         or null otherwise.
+     */
+    static int[] coveringMatching(AllocationProblem problem) {
+        if (problem.eventCount() > problem.venueCount()) {
+            return null;
+        }
+        EventMatching matching = new EventMatching(problem);
+        if (matching.maximumMatchingSize() != problem.eventCount()) {
+            return null;
+        }
+        return matching.eventMatch.clone();
+    }
+
+    /**
+     * Computes a maximum matching, and returns its size.
+     */
+    private int maximumMatchingSize() {
+        // the number of events matched so far
+        int size = 0;
+        while (findAugmentingPaths()) {
+            for (int e = 0; e < eventMatch.length; e++) {
+                if (eventMatch[e] < 0 && augment(e)) {
+                    size++;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Computes the distance of each event from the unmatched events along
+     * alternating paths, by breadth-first search. Returns true if there is an
+     * augmenting path (i.e. one that ends at an unmatched venue).
+     */
+    private boolean findAugmentingPaths() {
+        // the events in the order they are reached
+        int[] queue = new int[eventMatch.length];
+        int head = 0;
+        int tail = 0;
+        for (int e = 0; e < eventMatch.length; e++) {
+            if (eventMatch[e] < 0) {
+                distance[e] = 0;
+                queue[tail++] = e;
+            } else {
+                distance[e] = INFINITY;
+            }
+        }
+        // whether or not an unmatched venue was reached
+        boolean found = false;
+        while (head < tail) {
+            int e = queue[head++];
+            long[] compatible = problem.compatibleVenues(e);
+            for (int word = 0; word < compatible.length; word++) {
+                for (long bits = compatible[word]; bits != 0; bits &= bits
+                        - 1) {
+                    int v = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    // the event matched to the venue
+                    int next = venueMatch[v];
+                    if (next < 0) {
+                        found = true;
+                    } else if (distance[next] == INFINITY) {
+                        distance[next] = distance[e] + 1;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Looks for a shortest augmenting path from event e (along which each
+     * event is one further from the unmatched events than the last), and
+     * flips the matching along it if one is found. Returns true if the
+     * matching was augmented.
+     */
+    private boolean augment(int e) {
+        long[] compatible = problem.compatibleVenues(e);
+        for (int word = 0; word < compatible.length; word++) {
+            for (long bits = compatible[word]; bits != 0; bits &= bits - 1) {
+                int v = (word << 6) + Long.numberOfTrailingZeros(bits);
+                // the event matched to the venue
+                int next = venueMatch[v];
+                if (next < 0 || (distance[next] == distance[e] + 1 && augment(
+                        next))) {
+                    eventMatch[e] = v;
+                    venueMatch[v] = e;
+                    return true;
+                }
+            }
+        }
+        // no augmenting path passes through e in this phase
+        distance[e] = INFINITY;
+        return false;
+    }
+
+}
@@ -0,0 +1,30 @@
+package planner;
+
+/**
+ * The orders in which an allocation search can allocate events to venues.
+ */
+public enum EventOrder {
+
+    /**
+     * Allocate the events in the order they are given.
+     */
+    GIVEN,
+
+    /**
+     * Allocate the largest events first.
+     */
+    LARGEST_FIRST,
+
+    /**
+     * Allocate the events that the fewest venues can host first.
+     */
+    FEWEST_VENUES_FIRST,
+
+    /**
+     * Allocate the events that cause the highest corridor load first, where
+     * the corridor load of an event is the least total load (as a proportion
+     * of corridor capacity) that it causes at any venue that can host it.
+     */
+    HIGHEST_LOAD_FIRST
+
+}
@@ -0,0 +1,117 @@
+package planner;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Provides a method to read in a list of events from a text file.
+ */
+public class EventReader {
+
+    // the string that separates the name of an event from its size
+    private final static String SEPARATOR = ": ";
+
+    /**
+     * <p>
+     * Reads a text file called fileName that lists the events to be held in a
+     * municipality, and returns a list containing each of the events read
+     * from the file, in the order that they appear in the file.
+     * </p>
+     *
+     * <p>
+     * Each line of the file that is not empty describes one event, and is a
+     * string of the form <br>
+     * <br>
+     * "NAME: SIZE"<br>
+     * <br>
+     * where NAME is a non-empty string denoting the name of the event, and
+     * SIZE is a positive integer with no additional leading or trailing
+     * whitespace denoting the size of the event. The name is separated from
+     * the size by the last occurrence of ": " on the line, so the name itself
+     * may contain ": ". For example, <br>
+     * <br>
+     * "Brisbane Festival: Opening Night: 2000"<br>
+     * <br>
+     * represents an event called "Brisbane Festival: Opening Night" of size
+     * 2000. Empty lines are ignored.
+     * </p>
+     *
+     * <p>
+     * If a format error is detected, the FormatException thrown has a message
+     * of the form "Line N: DESCRIPTION", where N is the number of the line on
+     * which the error was found. It is a format error for the file to list
+     * the same event (with the same name and size) more than once.
+     * </p>
+     *
+     * @param fileName
+     *            the name of the file to read from.
+     * @return a list of the events from the file, in the order in which they
+     *         appear in the file.
+     * @throws IOException
+     *             if there is an error reading from the input file.
+     * @throws FormatException
+     *             if there is an error with the input format (e.g. a line is
+     *             not of the form "NAME: SIZE" or an event is listed twice).
+     */
+    public static List<Event> read(String fileName) throws IOException,
+            FormatException {
+        // the events read from the file, and the same events as a set to
+        // detect duplicate events
+        List<Event> events = new ArrayList<>();
+        Set<Event> seen = new HashSet<>();
+        int lineNumber = 0;
+        try (LineReader in = new LineReader(new FileReader(fileName))) {
+            while (in.hasNextLine()) {
+                String line = in.nextLine();
+                lineNumber++;
+                if (line.isEmpty()) {
+                    continue;
+                }
+                Event event = readEvent(lineNumber, line);
+                if (!seen.add(event)) {
+                    throw new FormatException("Line " + lineNumber
+                            + ": duplicate event detected.");
+                }
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Returns the event described by the given line of the file.
+     *
+     * @require line != null && !line.isEmpty()
+     * @throws FormatException
+     *             if the line is not of the form "NAME: SIZE"
+     */
+    private static Event readEvent(int lineNumber, String line)
+            throws FormatException {
+        // the position of the separator between the name and size
+        int separator = line.lastIndexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new FormatException("Line " + lineNumber
+                    + ": event size missing.");
+        }
+        String name = line.substring(0, separator);
+        if (name.isEmpty()) {
+            throw new FormatException("Line " + lineNumber
+                    + ": event name cannot be the empty string.");
+        }
+        // the size of the event
+        int size;
+        try {
+            size = Integer.parseInt(line.substring(separator
+                    + SEPARATOR.length()));
+        } catch (NumberFormatException e) {
+            throw new FormatException("Line " + lineNumber
+                    + ": invalid event size.");
+        }
+        if (size <= 0) {
+            throw new FormatException("Line " + lineNumber
+                    + ": event size must be greater than zero.");
+        }
+        return new Event(name, size);
+    }
+
+}
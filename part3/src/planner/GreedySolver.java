@@ -0,0 +1,152 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * A heuristic solver that allocates each event in turn to the venue where it
+ * raises the peak utilisation of the venue's corridors the least, and
+ * repairs the allocation when an event does not fit anywhere.
+ * </p>
+ *
+ * <p>
+ * The events are allocated in the given event order (largest first by
+ * default). An event is only ever allocated to a venue where the traffic from
+ * it fits, so the allocation stays safe throughout. If an event does not fit
+ * at any unused venue, each event already allocated is tried in turn: it is
+ * taken out of its venue, the new event is allocated where it now fits best,
+ * and the event taken out is then allocated where it fits best. The first
+ * such repair that succeeds is kept. If none succeeds, the solver gives up
+ * without an allocation.
+ * </p>
+ *
+ * <p>
+ * The solver takes time polynomial in the numbers of events and venues, but
+ * is not exact: it can fail to find a safe allocation that exists. In the
+ * result, each venue choice and each repair tried counts as a node explored,
+ * and each repair that failed as a node pruned.
+ * </p>
+ */
+public class GreedySolver implements AllocationSolver {
+
+    // the order in which events are allocated
+    private EventOrder eventOrder;
+
+    /*
+     * invariant: eventOrder != null
+     */
+
+    /**
+     * Creates a solver that allocates the largest events first.
+     */
+    public GreedySolver() {
+        this(EventOrder.LARGEST_FIRST);
+    }
+
+    /**
+     * Creates a solver that allocates the events in the given order.
+     *
+     * @param eventOrder
+     *            the order in which to allocate the events
+     * @throws NullPointerException
+     *             if eventOrder is null
+     */
+    public GreedySolver(EventOrder eventOrder) {
+        if (eventOrder == null) {
+            throw new NullPointerException(
+                    "The event order cannot be null.");
+        }
+        this.eventOrder = eventOrder;
+    }
+
+    @Override
+    public AllocationResult solve(List<Event> events, List<Venue> venues) {
+        AllocationProblem problem = new AllocationProblem(events, venues,
+                eventOrder, VenueOrder.GIVEN);
+        SearchStatistics statistics = new SearchStatistics();
+        Assignment assignment = new Assignment(problem);
+        for (int e = 0; e < problem.eventCount(); e++) {
+            statistics.nodeExplored();
+            // the venue where the event fits best
+            int v = bestVenue(problem, assignment, e);
+            if (v >= 0) {
+                assignment.place(e, v);
+            } else if (!repair(problem, assignment, e, statistics)) {
+                return new AllocationResult(null, Double.NaN, statistics);
+            }
+        }
+        return new AllocationResult(assignment.toAllocation(), assignment
+                .peakUtilisation(), statistics);
+    }
+
+    @Override
+    public boolean isExact() {
+        return false;
+    }
+
+    /**
+     * Returns the unused venue where event number e fits with the lowest peak
+     * utilisation of the venue's corridors, or -1 if it does not fit at any.
+     */
+    private static int bestVenue(AllocationProblem problem,
+            Assignment assignment, int e) {
+        int best = -1;
+        double bestPeak = Double.POSITIVE_INFINITY;
+        long[] compatible = problem.compatibleVenues(e);
+        for (int w = 0; w < compatible.length; w++) {
+            for (long word = compatible[w]; word != 0; word &= word - 1) {
+                int v = (w << 6) + Long.numberOfTrailingZeros(word);
+                if (assignment.fits(e, v)) {
+                    double peak = assignment.peakWith(e, v);
+                    if (peak < bestPeak) {
+                        best = v;
+                        bestPeak = peak;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Tries to allocate event number e by moving one of the events before it
+     * to another venue, and returns true if it succeeded.
+     *
+     * @require the events before e are allocated safely, and e does not fit
+     *          at any unused venue
+     * @ensure If true is returned, the events up to and including e are
+     *         allocated safely. Otherwise the assignment is left as it was
+     *         given.
+     */
+    private static boolean repair(AllocationProblem problem,
+            Assignment assignment, int e, SearchStatistics statistics) {
+        for (int f = e - 1; f >= 0; f--) {
+            statistics.nodeExplored();
+            // the venue of the event that is moved
+            int u = assignment.venueOf(f);
+            assignment.remove(f);
+            int v = bestVenue(problem, assignment, e);
+            if (v >= 0) {
+                assignment.place(e, v);
+                int w = bestVenue(problem, assignment, f);
+                if (w >= 0) {
+                    assignment.place(f, w);
+                    return true;
+                }
+                assignment.remove(e);
+            }
+            assignment.place(f, u);
+            statistics.nodePruned();
+        }
+        return false;
+    }
+
+    /**
+     * The string representation is of the form "greedy (EVENT_ORDER)".
+     */
+    @Override
+    public String toString() {
+        return "greedy (" + eventOrder + ")";
+    }
+
+}
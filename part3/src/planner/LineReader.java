@@ -0,0 +1,148 @@
+package planner;
+
+import java.io.*;
+
+/**
+ * <p>
+ * Reads a character stream a line at a time, without regular expressions.
+ * </p>
+ * 
+ * <p>
+ * Lines are split in the same way as Scanner.nextLine splits them: a line is
+ * terminated by "\r\n", or by any one of '\n', '\r', '\u2028', '\u2029' or
+ * '\u0085'. The last line of the stream need not be terminated, but if the
+ * stream ends with a line terminator, there is no empty line after it.
+ * </p>
+ */
+class LineReader implements Closeable {
+
+    // the number of characters read from the stream at a time
+    private final static int BUFFER_LENGTH = 8192;
+
+    // the stream that lines are read from
+    private Reader in;
+    // the characters read from the stream that have not been consumed, which
+    // are buffer[position] to buffer[limit - 1]
+    private char[] buffer;
+    private int position;
+    private int limit;
+    // whether or not the end of the stream has been reached
+    private boolean endOfStream;
+    // the number of characters read from the stream into the buffer
+    private long charactersRead;
+
+    /**
+     * Creates a reader of the lines of the given stream.
+     * 
+     * @require in != null
+     */
+    LineReader(Reader in) {
+        this.in = in;
+        buffer = new char[BUFFER_LENGTH];
+        position = 0;
+        limit = 0;
+        endOfStream = false;
+        charactersRead = 0;
+    }
+
+    /**
+     * Returns true if there is another line to read, and false otherwise.
+     * 
+     * @return true if there is another line to read
+     * @throws IOException
+     *             if there is an error reading from the stream
+     */
+    boolean hasNextLine() throws IOException {
+        return position < limit || fill();
+    }
+
+    /**
+     * Reads and returns the next line, without its line terminator.
+     * 
+     * @require hasNextLine()
+     * @return the next line, without its line terminator
+     * @throws IOException
+     *             if there is an error reading from the stream
+     */
+    String nextLine() throws IOException {
+        // the characters of the line from earlier buffers, if it spans more
+        // than one buffer
+        StringBuilder line = null;
+        while (true) {
+            for (int i = position; i < limit; i++) {
+                char c = buffer[i];
+                if (isTerminator(c)) {
+                    String result = (line == null ? new String(buffer,
+                            position, i - position) : line.append(buffer,
+                                    position, i - position).toString());
+                    position = i + 1;
+                    if (c == '\r' && (position < limit || fill())
+                            && buffer[position] == '\n') {
+                        position++;
+                    }
+                    return result;
+                }
+            }
+            if (line == null) {
+                line = new StringBuilder();
+            }
+            line.append(buffer, position, limit - position);
+            position = limit;
+            if (!fill()) {
+                return line.toString();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of characters of the stream that have been consumed
+     * by reading lines (including their line terminators).
+     * 
+     * @return the number of characters consumed so far
+     */
+    long getCharactersConsumed() {
+        return charactersRead - (limit - position);
+    }
+
+    /**
+     * Closes the stream.
+     * 
+     * @throws IOException
+     *             if there is an error closing the stream
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads more characters from the stream into the (fully consumed) buffer.
+     * Returns true if any characters were read, and false at the end of the
+     * stream.
+     * 
+     * @require position == limit
+     */
+    private boolean fill() throws IOException {
+        while (!endOfStream) {
+            int count = in.read(buffer, 0, buffer.length);
+            if (count < 0) {
+                endOfStream = true;
+            } else if (count > 0) {
+                position = 0;
+                limit = count;
+                charactersRead += count;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if c terminates a line.
+     */
+    private static boolean isTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029'
+                || c == '\u0085';
+    }
+
+}
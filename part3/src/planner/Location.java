@@ -46,6 +46,9 @@ public class Location implements Comparable<Location> {
      */
     @Override
     public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
         if (!(object instanceof Location)) {
             return false;
         }
@@ -79,6 +82,9 @@ public class Location implements Comparable<Location> {
      */
     @Override
     public int compareTo(Location other) {
+        if (this == other) {
+            return 0;
+        }
         return name.compareTo(other.name);
     }
 
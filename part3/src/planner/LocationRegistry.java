@@ -0,0 +1,63 @@
+package planner;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * A registry of shared location instances.
+ * </p>
+ * 
+ * <p>
+ * Interning a location returns the first location registered with the same
+ * name, so that equal locations read from many places (e.g. every corridor
+ * line of a large venue file) are represented by a single object, which
+ * compares equal to itself without comparing names.
+ * </p>
+ */
+final class LocationRegistry {
+
+    // the first location registered with each name
+    private final static ConcurrentHashMap<String, Location> REGISTERED =
+            new ConcurrentHashMap<>();
+
+    /**
+     * This class only provides static methods.
+     */
+    private LocationRegistry() {
+    }
+
+    /**
+     * Returns the registered location with the given name, registering a new
+     * location with that name if there is none.
+     * 
+     * @param name
+     *            the name of the location
+     * @return the registered location with the given name
+     * @throws NullPointerException
+     *             if name is null
+     */
+    static Location intern(String name) {
+        // the registered location, if there is one
+        Location registered = REGISTERED.get(name);
+        return (registered != null ? registered : REGISTERED.computeIfAbsent(
+                name, Location::new));
+    }
+
+    /**
+     * Returns the registered location equal to the given location,
+     * registering the given location if there is none.
+     * 
+     * @param location
+     *            the location to intern
+     * @return the registered location equal to the given location
+     * @throws NullPointerException
+     *             if location is null
+     */
+    static Location intern(Location location) {
+        // the registered location, if there is one
+        Location registered = REGISTERED.putIfAbsent(location.getName(),
+                location);
+        return (registered != null ? registered : location);
+    }
+
+}
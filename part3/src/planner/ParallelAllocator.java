@@ -0,0 +1,241 @@
+package planner;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * Provides methods for finding safe allocations of events to venues, that
+ * split the search across the threads of a fork-join pool.
+ * </p>
+ * 
+ * <p>
+ * Each choice of venue for the first splitDepth events becomes its own
+ * subtask, with its own copy of the partial allocation, so the subtasks can be
+ * explored in parallel. Below that depth, each subtask searches sequentially.
+ * Idle threads in the pool steal subtasks from busy ones.
+ * </p>
+ * 
+ * <p>
+ * When looking for a single safe allocation, the first subtask to find one
+ * stops all of the others.
+ * </p>
+ */
+public class ParallelAllocator {
+
+    // the default number of events whose venue choices become subtasks
+    private final static int DEFAULT_SPLIT_DEPTH = 2;
+
+    // the pool the searches are run in
+    private ForkJoinPool pool;
+    // the number of events whose venue choices become subtasks
+    private int splitDepth;
+
+    /*
+     * invariant: pool != null && splitDepth >= 0
+     */
+
+    /**
+     * Creates an allocator that runs its searches in the common fork-join
+     * pool, splitting on the venue choices of the first two events.
+     */
+    public ParallelAllocator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_SPLIT_DEPTH);
+    }
+
+    /**
+     * Creates an allocator that runs its searches in the given pool,
+     * splitting on the venue choices of the first splitDepth events.
+     * 
+     * @param pool
+     *            the pool the searches will be run in
+     * @param splitDepth
+     *            the number of events whose venue choices become subtasks
+     * @throws NullPointerException
+     *             if pool is null
+     * @throws IllegalArgumentException
+     *             if splitDepth is less than zero
+     */
+    public ParallelAllocator(ForkJoinPool pool, int splitDepth) {
+        if (pool == null) {
+            throw new NullPointerException("Parameter pool cannot be null");
+        }
+        if (splitDepth < 0) {
+            throw new IllegalArgumentException(
+                    "The split depth cannot be less than 0.");
+        }
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+    }
+
+    /**
+     * Returns a safe allocation of events to venues, if there is at least one
+     * possible safe allocation, or null otherwise.
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Returns a safe allocation of events to venues, if there is at
+     *         least one possible safe allocation, or null otherwise.
+     */
+    public Map<Event, Venue> allocate(List<Event> events, List<Venue> venues) {
+        // the search with no events allocated
+        AllocationSearch search = new AllocationSearch(events, venues);
+        if (!EventMatching.coversEveryEvent(search.getProblem())) {
+            return null;
+        }
+        // the flag that stops every subtask once an allocation is found
+        AtomicBoolean found = new AtomicBoolean(false);
+        search.setStoppedFlag(found);
+        // the allocation found
+        AtomicReference<Map<Event, Venue>> result = new AtomicReference<>();
+        pool.invoke(new FirstAllocationTask(search, 0, found, result));
+        return result.get();
+    }
+
+    /**
+     * Returns the set of all possible safe allocations of events to venues.
+     * 
+     * @require events != null && venues != null && !events.contains(null) &&
+     *          !venues.contains(null) && events does not contain duplicate
+     *          events && venues does not contain duplicate venues.
+     * @ensure Returns the set of all possible safe allocations of events to
+     *         venues, or an empty set if there are no possible safe
+     *         allocations.
+     */
+    public Set<Map<Event, Venue>> allAllocations(List<Event> events,
+            List<Venue> venues) {
+        // the search with no events allocated
+        AllocationSearch search = new AllocationSearch(events, venues);
+        if (!EventMatching.coversEveryEvent(search.getProblem())) {
+            return new HashSet<>();
+        }
+        return pool.invoke(new AllAllocationsTask(search, 0));
+    }
+
+    /**
+     * Returns a subtask for each venue that the event at position index can
+     * be safely allocated to, given the partial allocation of search. Each
+     * subtask has its own copy of the search with the event allocated.
+     * 
+     * @require search has allocated exactly the events before position index
+     *          && index < the number of events
+     * @ensure Returns the searches for each venue choice of the event at
+     *         position index. search is left as it was given.
+     */
+    private static List<AllocationSearch> split(AllocationSearch search,
+            int index) {
+        List<AllocationSearch> result = new ArrayList<>();
+        for (int k = search.nextCandidate(index, 0); k >= 0; k = search
+                .nextCandidate(index, k + 1)) {
+            // the kth venue to try for the event
+            int v = search.candidateVenue(index, k);
+            if (search.place(index, v)) {
+                result.add(new AllocationSearch(search));
+                search.remove(index, v);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A subtask that searches for the first safe allocation extending the
+     * partial allocation of its search.
+     */
+    @SuppressWarnings("serial")
+    private class FirstAllocationTask extends RecursiveAction {
+
+        // the partial allocation to extend, owned by this task
+        private AllocationSearch search;
+        // the position of the next event to allocate
+        private int index;
+        // set once any task has found a safe allocation
+        private AtomicBoolean found;
+        // the safe allocation found
+        private AtomicReference<Map<Event, Venue>> result;
+
+        private FirstAllocationTask(AllocationSearch search, int index,
+                AtomicBoolean found,
+                AtomicReference<Map<Event, Venue>> result) {
+            this.search = search;
+            this.index = index;
+            this.found = found;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            if (found.get()) {
+                return;
+            }
+            if (index >= splitDepth
+                    || index == search.getProblem().eventCount()) {
+                if (search.first(index) && result.compareAndSet(null, search
+                        .toAllocation())) {
+                    found.set(true);
+                }
+                return;
+            }
+            // the subtasks for each venue choice, forked in reverse so that
+            // this thread takes the first choice itself
+            List<FirstAllocationTask> subtasks = new ArrayList<>();
+            for (AllocationSearch subsearch : split(search, index)) {
+                subtasks.add(new FirstAllocationTask(subsearch, index + 1,
+                        found, result));
+            }
+            for (int i = subtasks.size() - 1; i >= 0; i--) {
+                subtasks.get(i).fork();
+            }
+            for (FirstAllocationTask subtask : subtasks) {
+                if (found.get()) {
+                    // cancel the subtasks that have not started yet
+                    subtask.cancel(false);
+                } else {
+                    subtask.quietlyJoin();
+                }
+            }
+        }
+    }
+
+    /**
+     * A subtask that finds every safe allocation extending the partial
+     * allocation of its search.
+     */
+    @SuppressWarnings("serial")
+    private class AllAllocationsTask extends
+            RecursiveTask<Set<Map<Event, Venue>>> {
+
+        // the partial allocation to extend, owned by this task
+        private AllocationSearch search;
+        // the position of the next event to allocate
+        private int index;
+
+        private AllAllocationsTask(AllocationSearch search, int index) {
+            this.search = search;
+            this.index = index;
+        }
+
+        @Override
+        protected Set<Map<Event, Venue>> compute() {
+            Set<Map<Event, Venue>> allocations = new HashSet<>();
+            if (index >= splitDepth
+                    || index == search.getProblem().eventCount()) {
+                search.all(index, allocations);
+                return allocations;
+            }
+            List<AllAllocationsTask> subtasks = new ArrayList<>();
+            for (AllocationSearch subsearch : split(search, index)) {
+                subtasks.add(new AllAllocationsTask(subsearch, index + 1));
+            }
+            for (AllAllocationsTask subtask : invokeAll(subtasks)) {
+                allocations.addAll(subtask.join());
+            }
+            return allocations;
+        }
+    }
+
+}
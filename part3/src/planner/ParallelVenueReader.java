@@ -0,0 +1,386 @@
+package planner;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p>
+ * Provides a method to read in venues from a text file, in the format
+ * described by the read method of the VenueReader class, that splits the
+ * parsing of the file across the threads of a fork-join pool.
+ * </p>
+ *
+ * <p>
+ * The file is memory-mapped, and split into chunks of roughly chunkLength
+ * bytes. Each chunk ends just after an empty line, which (if there is no
+ * format error before it) is the empty line that completes a venue
+ * description. Each chunk is then parsed as its own subtask. The venues read
+ * from the chunks are merged in the order in which they appear in the file,
+ * and duplicate venues are detected as they are merged.
+ * </p>
+ *
+ * <p>
+ * The result is the same as the result of VenueReader.read: the same venues
+ * are read, and if there is a format error in the file, the FormatException
+ * thrown has the same message, including the same line number. (If more than
+ * one chunk has an error, the error in the earliest chunk is the one that is
+ * reported, since that is the error that reading the file from the start
+ * would find first.)
+ * </p>
+ *
+ * <p>
+ * The file is read using the default character set, as it is by
+ * VenueReader.read. If the default character set is not one in which line
+ * terminators can be found byte by byte (UTF-8, US-ASCII or ISO-8859-1), the
+ * file is read by VenueReader.read instead.
+ * </p>
+ */
+public class ParallelVenueReader {
+
+    // the default number of bytes in each chunk of the file
+    private final static int DEFAULT_CHUNK_LENGTH = 1 << 24;
+
+    // the number of bytes of the file that are mapped at a time while looking
+    // for the end of a chunk
+    private final static int WINDOW_LENGTH = 1 << 16;
+
+    // the character sets in which '\n' and '\r' are single bytes that are
+    // never part of another character
+    private final static Set<Charset> SPLITTABLE_CHARSETS = new HashSet<>(
+            Arrays.asList(StandardCharsets.UTF_8, StandardCharsets.US_ASCII,
+                    StandardCharsets.ISO_8859_1));
+
+    // the pool the chunks are parsed in
+    private ForkJoinPool pool;
+    // the number of bytes in each chunk of the file (before it is extended to
+    // the next empty line)
+    private int chunkLength;
+
+    /*
+     * invariant: pool != null && chunkLength > 0
+     */
+
+    /**
+     * Creates a reader that parses files in the common fork-join pool, in
+     * chunks of 16MB.
+     */
+    public ParallelVenueReader() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_LENGTH);
+    }
+
+    /**
+     * Creates a reader that parses files in the given pool, in chunks of
+     * roughly chunkLength bytes.
+     *
+     * @param pool
+     *            the pool the chunks will be parsed in
+     * @param chunkLength
+     *            the number of bytes in each chunk, before it is extended to
+     *            the next empty line
+     * @throws NullPointerException
+     *             if pool is null
+     * @throws IllegalArgumentException
+     *             if chunkLength is less than or equal to 0
+     */
+    public ParallelVenueReader(ForkJoinPool pool, int chunkLength) {
+        if (pool == null) {
+            throw new NullPointerException("Parameter pool cannot be null");
+        }
+        if (chunkLength <= 0) {
+            throw new IllegalArgumentException(
+                    "The chunk length must be greater than 0.");
+        }
+        this.pool = pool;
+        this.chunkLength = chunkLength;
+    }
+
+    /**
+     * Reads a text file called fileName that describes the venues in a
+     * municipality, and returns a list containing each of the venues read from
+     * the file, in the order that they appear in the file. The file is in the
+     * format described by the read method of the VenueReader class.
+     *
+     * @param fileName
+     *            the name of the file to read from.
+     * @return a list of the venues from the file, in the order in which they
+     *         appear in the file.
+     * @throws IOException
+     *             if there is an error reading from the input file.
+     * @throws FormatException
+     *             if there is an error with the input format. The exception
+     *             has the same message as the one VenueReader.read would
+     *             throw for the same file.
+     */
+    public List<Venue> read(String fileName) throws IOException,
+            FormatException {
+        // the character set that VenueReader.read would use
+        Charset charset = Charset.defaultCharset();
+        if (!SPLITTABLE_CHARSETS.contains(charset)) {
+            return VenueReader.read(fileName);
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+                StandardOpenOption.READ)) {
+            // the subtasks parsing each chunk, in file order
+            List<ChunkTask> tasks = new ArrayList<>();
+            // the flag that stops the subtasks that have not started yet
+            AtomicBoolean stopped = new AtomicBoolean(false);
+            long size = channel.size();
+            long start = 0; // the start of the next chunk
+            while (start < size) {
+                long end = nextBoundary(channel, start + chunkLength, size);
+                if (end - start > Integer.MAX_VALUE) {
+                    throw new IOException("Cannot map the " + (end - start)
+                            + " bytes from position " + start
+                            + " that have no empty line.");
+                }
+                ChunkTask task = new ChunkTask(channel, start, (int) (end
+                        - start), charset, 0, stopped);
+                pool.execute(task);
+                tasks.add(task);
+                start = end;
+            }
+            try {
+                return merge(tasks);
+            } finally {
+                // stop the chunks that are no longer needed after an error,
+                // and wait for any that are being parsed, so that nothing
+                // reads the file after it is closed
+                stopped.set(true);
+                for (ChunkTask task : tasks) {
+                    task.quietlyJoin();
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the venues read from each chunk in file order, and returns them.
+     *
+     * @require tasks != null && the tasks are the chunks of a file, in order,
+     *          and have all been started
+     * @ensure Returns the venues read from the chunks, in order.
+     * @throws FormatException
+     *             if there is a format error in any of the chunks, or a
+     *             duplicate venue. The error reported is the one that reading
+     *             the file from the start would find first.
+     * @throws IOException
+     *             if there is an error reading any of the chunks
+     */
+    private static List<Venue> merge(List<ChunkTask> tasks)
+            throws FormatException, IOException {
+        // the venues read from the file
+        List<Venue> result = new ArrayList<>();
+        // the venues read so far, to detect duplicate venues
+        Set<Venue> venues = new HashSet<>();
+        int linesBefore = 0; // the number of lines before the current chunk
+        for (ChunkTask task : tasks) {
+            Chunk chunk = join(task);
+            for (int i = 0; i < chunk.venues.size(); i++) {
+                Venue venue = chunk.venues.get(i);
+                if (!venues.add(venue)) {
+                    throw new FormatException("Line " + (linesBefore
+                            + chunk.endLines[i])
+                            + ": duplicate venue detected.");
+                }
+                result.add(venue);
+            }
+            if (chunk.error != null) {
+                /*
+                 * The error was found without knowing the number of lines
+                 * before the chunk, so parse the chunk again now that it is
+                 * known, to find the error with its line number.
+                 */
+                throw task.withLinesBefore(linesBefore).parse().error;
+            }
+            linesBefore += chunk.lineCount;
+        }
+        return result;
+    }
+
+    /**
+     * Waits for the given task to finish, and returns its result.
+     *
+     * @throws IOException
+     *             if there is an error reading the chunk
+     */
+    private static Chunk join(ChunkTask task) throws IOException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Returns the position just after the first empty line that ends after
+     * position from, or size if there is no such line. Only '\n' and '\r' are
+     * recognised as line terminators (so a line ending in another line
+     * terminator might be skipped over), but the position returned is always
+     * just after an empty line.
+     *
+     * @require channel is open for reading && size == channel.size() && from
+     *          >= 0
+     * @throws IOException
+     *             if there is an error reading from the channel
+     */
+    private static long nextBoundary(FileChannel channel, long from,
+            long size) throws IOException {
+        // the position in the file of the start of the current window
+        long position = from - 1;
+        while (position < size) {
+            int length = (int) Math.min(WINDOW_LENGTH, size - position);
+            // the window of the file being searched
+            ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+                    position, length);
+            // the positions in the window at which a line terminator can be
+            // examined without reading past the end of the window (three
+            // bytes are needed for "\r\n\n" if the window is not the last)
+            int limit = (position + length == size ? length : length - 3);
+            for (int i = 0; i < limit; i++) {
+                // the end of a line terminator at i, and of one after it
+                int end = terminatorEnd(window, i, length);
+                int next = (end >= 0 ? terminatorEnd(window, end, length)
+                        : -1);
+                if (next >= 0) {
+                    return position + next;
+                }
+            }
+            position += limit;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the position just after the line terminator that starts at
+     * position i of the buffer, or -1 if none starts there.
+     *
+     * @require 0 <= i && length <= buffer.limit()
+     */
+    private static int terminatorEnd(ByteBuffer buffer, int i, int length) {
+        if (i >= length) {
+            return -1;
+        }
+        if (buffer.get(i) == '\n') {
+            return i + 1;
+        }
+        if (buffer.get(i) == '\r') {
+            return (i + 1 < length && buffer.get(i + 1) == '\n' ? i + 2
+                    : i + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * The venues read from a chunk of a file.
+     */
+    private static class Chunk {
+
+        // the venues read from the chunk, in order
+        private List<Venue> venues;
+        // the line number of the empty line that completes each venue
+        private int[] endLines;
+        // the number of lines in the chunk
+        private int lineCount;
+        // the format error in the chunk after the venues that were read, or
+        // null if there is none
+        private FormatException error;
+    }
+
+    /**
+     * A subtask that maps, decodes and parses one chunk of a file.
+     */
+    @SuppressWarnings("serial")
+    private static class ChunkTask extends RecursiveTask<Chunk> {
+
+        // the file the chunk is part of
+        private FileChannel channel;
+        // the position in the file of the start of the chunk, and its length
+        private long start;
+        private int length;
+        // the character set of the file
+        private Charset charset;
+        // the number of lines in the file before the chunk
+        private int linesBefore;
+        // the flag that stops the task, if it is set before the task starts
+        private AtomicBoolean stopped;
+
+        /**
+         * Creates a task that parses the given chunk of the file, where
+         * there are linesBefore lines in the file before the chunk. The task
+         * does nothing if stopped is set before it starts.
+         */
+        private ChunkTask(FileChannel channel, long start, int length,
+                Charset charset, int linesBefore, AtomicBoolean stopped) {
+            this.channel = channel;
+            this.start = start;
+            this.length = length;
+            this.charset = charset;
+            this.linesBefore = linesBefore;
+            this.stopped = stopped;
+        }
+
+        /**
+         * Returns an (unstarted) task that parses the same chunk as this
+         * task, where there are linesBefore lines before the chunk.
+         */
+        private ChunkTask withLinesBefore(int linesBefore) {
+            return new ChunkTask(channel, start, length, charset,
+                    linesBefore, stopped);
+        }
+
+        @Override
+        protected Chunk compute() {
+            if (stopped.get()) {
+                return null;
+            }
+            try {
+                return parse();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Maps, decodes and parses the chunk in the current thread, and
+         * returns the venues read from it.
+         *
+         * @throws IOException
+         *             if there is an error reading the chunk
+         */
+        private Chunk parse() throws IOException {
+            // the chunk decoded to characters
+            CharBuffer chars = charset.decode(channel.map(
+                    FileChannel.MapMode.READ_ONLY, start, length));
+            VenueReader.VenueIterator in = new VenueReader.VenueIterator(
+                    new LineReader(new CharArrayReader(chars.array(), chars
+                            .arrayOffset() + chars.position(), chars
+                                    .remaining())), linesBefore);
+            Chunk result = new Chunk();
+            result.venues = new ArrayList<>();
+            result.endLines = new int[16];
+            try {
+                while (in.hasNext()) {
+                    result.venues.add(in.nextVenue());
+                    if (result.venues.size() > result.endLines.length) {
+                        result.endLines = Arrays.copyOf(result.endLines, 2
+                                * result.endLines.length);
+                    }
+                    result.endLines[result.venues.size() - 1] = in
+                            .getLineNumber() - linesBefore;
+                }
+                result.lineCount = in.getLineNumber() - linesBefore;
+            } catch (FormatException e) {
+                result.error = e;
+            }
+            return result;
+        }
+    }
+
+}
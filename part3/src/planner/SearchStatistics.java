@@ -0,0 +1,158 @@
+package planner;
+
+/**
+ * <p>
+ * A mutable record of the work done by an allocation search.
+ * </p>
+ * 
+ * <p>
+ * A node is a partial allocation visited by the search. A node is pruned if
+ * the search proved that none of the allocations extending it needed to be
+ * explored, without exploring them.
+ * </p>
+ */
+public class SearchStatistics {
+
+    // the number of nodes explored by the search
+    private long nodesExplored;
+    // the number of nodes pruned by the search
+    private long nodesPruned;
+    // the number of lookups of known dead ends that were (and were not) hits
+    private long deadEndHits;
+    private long deadEndMisses;
+    // the number of dead ends forgotten to bound the memory used
+    private long deadEndsEvicted;
+
+    /*
+     * invariant: nodesExplored >= 0 && nodesPruned >= 0 && deadEndHits >= 0
+     * && deadEndMisses >= 0 && deadEndsEvicted >= 0
+     */
+
+    /**
+     * Creates a new record of a search that has not done any work yet.
+     */
+    public SearchStatistics() {
+        nodesExplored = 0;
+        nodesPruned = 0;
+        deadEndHits = 0;
+        deadEndMisses = 0;
+        deadEndsEvicted = 0;
+    }
+
+    /**
+     * Returns the number of nodes explored by the search.
+     * 
+     * @return the number of nodes explored
+     */
+    public long getNodesExplored() {
+        return nodesExplored;
+    }
+
+    /**
+     * Returns the number of nodes pruned by the search.
+     * 
+     * @return the number of nodes pruned
+     */
+    public long getNodesPruned() {
+        return nodesPruned;
+    }
+
+    /**
+     * Returns the number of nodes that the search found in its table of dead
+     * ends (nodes already shown to have no safe completion), and so pruned.
+     * 
+     * @return the number of lookups of dead ends that were hits
+     */
+    public long getDeadEndHits() {
+        return deadEndHits;
+    }
+
+    /**
+     * Returns the number of nodes that the search looked up in its table of
+     * dead ends without finding them.
+     * 
+     * @return the number of lookups of dead ends that were misses
+     */
+    public long getDeadEndMisses() {
+        return deadEndMisses;
+    }
+
+    /**
+     * Returns the fraction of the lookups in the table of dead ends that were
+     * hits, or 0 if the search made no lookups.
+     * 
+     * @return the hit rate of the table of dead ends
+     */
+    public double getDeadEndHitRate() {
+        long lookups = deadEndHits + deadEndMisses;
+        return (lookups == 0 ? 0 : (double) deadEndHits / lookups);
+    }
+
+    /**
+     * Returns the number of dead ends that the search evicted from its table
+     * because the table was full.
+     * 
+     * @return the number of dead ends evicted
+     */
+    public long getDeadEndsEvicted() {
+        return deadEndsEvicted;
+    }
+
+    /**
+     * Records that the search explored a node.
+     */
+    void nodeExplored() {
+        nodesExplored++;
+    }
+
+    /**
+     * Records that the search pruned a node.
+     */
+    void nodePruned() {
+        nodesPruned++;
+    }
+
+    /**
+     * Records that the search found a node in its table of dead ends.
+     */
+    void deadEndHit() {
+        deadEndHits++;
+    }
+
+    /**
+     * Records that the search did not find a node in its table of dead ends.
+     */
+    void deadEndMissed() {
+        deadEndMisses++;
+    }
+
+    /**
+     * Records that the search evicted a dead end from its table.
+     */
+    void deadEndEvicted() {
+        deadEndsEvicted++;
+    }
+
+    /**
+     * The string representation is of the form <br>
+     * <br>
+     * 
+     * "EXPLORED nodes explored, PRUNED nodes pruned"<br>
+     * <br>
+     * 
+     * where EXPLORED and PRUNED are the number of nodes explored and pruned,
+     * followed by ", dead end hit rate RATE% (EVICTED evicted)" if the search
+     * looked up any dead ends.
+     */
+    @Override
+    public String toString() {
+        String result = nodesExplored + " nodes explored, " + nodesPruned
+                + " nodes pruned";
+        if (deadEndHits + deadEndMisses > 0) {
+            result += String.format(", dead end hit rate %.1f%% (%d evicted)",
+                    100 * getDeadEndHitRate(), deadEndsEvicted);
+        }
+        return result;
+    }
+
+}
@@ -11,6 +11,14 @@ import java.util.*;
  * The traffic on a corridor is measured in non-negative integer units,
  * representing people.
  * </p>
+ * 
+ * <p>
+ * Internally, the traffic is kept in primitive arrays ordered by the ids that
+ * the CorridorRegistry gives each corridor, so that reading and updating the
+ * traffic never boxes integers or compares corridors by their location names.
+ * The corridors recorded are the ones interned by the registry, so equal
+ * corridors in different traffic records are the same object.
+ * </p>
  */
 public class Traffic {
 
@@ -18,22 +26,39 @@ public class Traffic {
     private final static String LINE_SEPARATOR = System.getProperty(
             "line.separator");
 
+    // the initial length of the arrays of an empty traffic record
+    private final static int INITIAL_LENGTH = 4;
+
     /*
-     * A mapping from traffic corridors with traffic (i.e. corridors such that
-     * this.getTraffic(c) > 0) to the amount of traffic currently associated
-     * with them.
+     * The traffic corridors with traffic (i.e. corridors such that
+     * this.getTraffic(c) > 0) are corridors[0] to corridors[size - 1], their
+     * registry ids are ids[0] to ids[size - 1], and the amount of traffic on
+     * them is amounts[0] to amounts[size - 1].
      */
-    private TreeMap<Corridor, Integer> trafficMap;
+    private int[] ids;
+    private Corridor[] corridors;
+    private int[] amounts;
+    // the number of corridors with traffic
+    private int size;
+    // the structural hash of this record, or 0 if it has not been computed
+    // since the traffic last changed (a single field, like String.hash, so
+    // that a thread that reads it never sees a stale "computed" flag)
+    private int hash;
 
     /*
      * invariant:
      * 
-     * traffic !=null && !traffic.containsValue(null) &&
+     * ids != null && corridors != null && amounts != null &&
+     * 
+     * 0 <= size <= ids.length == corridors.length == amounts.length &&
      * 
-     * for each corridor c in traffic.keySet(), traffic.get(c) > 0
+     * for each 0 <= i < size, corridors[i] != null && corridors[i] is
+     * interned by the registry && ids[i] is the registry id of corridors[i]
+     * && amounts[i] > 0 &&
      * 
-     * (Note: TreeMaps can't contain null keys so we don't need
-     * !traffic.containsKey(null) as an invariant)
+     * for each 0 < i < size, ids[i - 1] < ids[i] &&
+     * 
+     * hash == 0 || hash is the structural hash of the traffic in this record
      */
 
     /**
@@ -47,7 +72,10 @@ public class Traffic {
      * </p>
      */
     public Traffic() {
-        trafficMap = new TreeMap<>();
+        ids = new int[INITIAL_LENGTH];
+        corridors = new Corridor[INITIAL_LENGTH];
+        amounts = new int[INITIAL_LENGTH];
+        size = 0;
     }
 
     /**
@@ -69,7 +97,34 @@ public class Traffic {
      *             if initialTraffic is null
      */
     public Traffic(Traffic initialTraffic) {
-        trafficMap = new TreeMap<Corridor, Integer>(initialTraffic.trafficMap);
+        size = initialTraffic.size;
+        ids = Arrays.copyOf(initialTraffic.ids, size);
+        corridors = Arrays.copyOf(initialTraffic.corridors, size);
+        amounts = Arrays.copyOf(initialTraffic.amounts, size);
+        hash = initialTraffic.hash;
+    }
+
+    /**
+     * Creates a new instance of this class with the given traffic on the
+     * given corridors. Entries with no traffic are left out.
+     * 
+     * @require ids, corridors and amounts have the same length && the ids are
+     *          in increasing order && each corridors[i] is interned by the
+     *          registry && each ids[i] is the registry id of corridors[i] &&
+     *          each amounts[i] >= 0
+     */
+    Traffic(int[] ids, Corridor[] corridors, int[] amounts) {
+        this.ids = new int[ids.length];
+        this.corridors = new Corridor[ids.length];
+        this.amounts = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            if (amounts[i] > 0) {
+                this.ids[size] = ids[i];
+                this.corridors[size] = corridors[i];
+                this.amounts[size] = amounts[i];
+                size++;
+            }
+        }
     }
 
     /**
@@ -94,11 +149,12 @@ public class Traffic {
         if (corridor == null) {
             throw new NullPointerException("corridor cannot be null");
         }
-        int currentAmount = 0; // the current amount of traffic on corridor
-        if (trafficMap.get(corridor) != null) {
-            currentAmount = trafficMap.get(corridor);
-        }
-        return currentAmount;
+        // the registry id of the corridor, or -1 if it is not registered (in
+        // which case no traffic can have been recorded on it)
+        int id = CorridorRegistry.lookup(corridor);
+        // the position of the corridor, if it has traffic
+        int index = (id >= 0 ? indexOf(id) : -1);
+        return (index >= 0 ? amounts[index] : 0);
     }
 
     /**
@@ -109,7 +165,11 @@ public class Traffic {
      *         greater than zero
      */
     public Set<Corridor> getCorridorsWithTraffic() {
-        return new HashSet<>(trafficMap.keySet());
+        Set<Corridor> result = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            result.add(corridors[i]);
+        }
+        return result;
     }
 
     /**
@@ -132,7 +192,54 @@ public class Traffic {
      *             if other is null
      */
     public boolean sameTraffic(Traffic other) {
-        return trafficMap.equals(other.trafficMap);
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (ids[i] != other.ids[i] || amounts[i] != other.amounts[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a hash code for the traffic recorded by this object, such that
+     * if this.sameTraffic(other) then this.structuralHash() ==
+     * other.structuralHash().
+     * 
+     * @return a hash code for the traffic recorded by this object
+     */
+    int structuralHash() {
+        // the cached hash, read once (a hash that is really 0 is recomputed
+        // each time, which is still correct)
+        int result = hash;
+        if (result == 0) {
+            result = computeHash();
+            hash = result;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the structural hash of the traffic recorded by this object.
+     * 
+     * @return the structural hash of the traffic recorded by this object
+     */
+    private int computeHash() {
+        /*
+         * We create a polynomial hash-code based on the registry id of, and
+         * amount of traffic on, each corridor with traffic. Since the
+         * corridors are kept in order of their ids, the same traffic always
+         * produces the same hash.
+         */
+        final int prime = 31; // an odd base prime
+        int result = 1; // the hash code under construction
+        for (int i = 0; i < size; i++) {
+            result = prime * result + ids[i];
+            result = prime * result + amounts[i];
+        }
+        return result;
     }
 
     /**
@@ -143,8 +250,56 @@ public class Traffic {
      *         or equal to the capacity of that corridor, and false otherwise.
      */
     public boolean isSafe() {
-        for (Corridor corridor : trafficMap.keySet()) {
-            if (trafficMap.get(corridor) > corridor.getCapacity()) {
+        for (int i = 0; i < size; i++) {
+            if (amounts[i] > corridors[i].getCapacity()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * Returns true if the traffic on each corridor would be less than or equal
+     * to the capacity of that corridor if the traffic defined by parameter
+     * extraTraffic were added to this object, and false otherwise.
+     * </p>
+     * 
+     * <p>
+     * That is, this method returns the same result as copying this object,
+     * adding extraTraffic to the copy and calling isSafe on the copy, but
+     * without copying or modifying either object.
+     * </p>
+     * 
+     * @param extraTraffic
+     *            the traffic that would be added to this object
+     * @return true if the traffic would be safe after adding extraTraffic to
+     *         this object, and false otherwise.
+     * @throws NullPointerException
+     *             if extraTraffic is null
+     */
+    public boolean isSafeWith(Traffic extraTraffic) {
+        int i = 0; // position in this record
+        for (int j = 0; j < extraTraffic.size; j++) {
+            // the corridors with traffic only in this record
+            while (i < size && ids[i] < extraTraffic.ids[j]) {
+                if (amounts[i] > corridors[i].getCapacity()) {
+                    return false;
+                }
+                i++;
+            }
+            // the traffic on the jth corridor of extraTraffic, once added
+            int amount = extraTraffic.amounts[j];
+            if (i < size && ids[i] == extraTraffic.ids[j]) {
+                amount += amounts[i];
+                i++;
+            }
+            if (amount > extraTraffic.corridors[j].getCapacity()) {
+                return false;
+            }
+        }
+        for (; i < size; i++) {
+            if (amounts[i] > corridors[i].getCapacity()) {
                 return false;
             }
         }
@@ -179,7 +334,13 @@ public class Traffic {
         if (corridor == null) {
             throw new NullPointerException("Parameter corridor cannot be null");
         }
-        int currentAmount = getTraffic(corridor);
+        // the registry id of the corridor, or -1 if it is not registered;
+        // it is only registered once traffic is recorded on it
+        int id = CorridorRegistry.lookup(corridor);
+        // the position of the corridor if it has traffic, or otherwise
+        // (-(insertion point) - 1)
+        int index = (id >= 0 ? indexOf(id) : -1);
+        int currentAmount = (index >= 0 ? amounts[index] : 0);
         // check that the traffic would not become negative.
         if (currentAmount + amount < 0) {
             throw new InvalidTrafficException(
@@ -187,10 +348,18 @@ public class Traffic {
         }
 
         // update the traffic on the corridor by amount
-        if (currentAmount + amount == 0) {
-            trafficMap.remove(corridor);
-        } else {
-            trafficMap.put(corridor, currentAmount + amount);
+        hash = 0;
+        if (index >= 0 && currentAmount + amount == 0) {
+            removeAt(index);
+        } else if (index >= 0) {
+            amounts[index] += amount;
+        } else if (amount > 0) {
+            if (id < 0) {
+                id = CorridorRegistry.idOf(corridor);
+                index = indexOf(id);
+            }
+            insertAt(-index - 1, id, CorridorRegistry.intern(corridor),
+                    amount);
         }
     }
 
@@ -218,10 +387,128 @@ public class Traffic {
      *             if extraTraffic is null
      */
     public void addTraffic(Traffic extraTraffic) {
-        for (Corridor corridor : extraTraffic.trafficMap.keySet()) {
-            trafficMap.put(corridor, getTraffic(corridor) + extraTraffic
-                    .getTraffic(corridor));
+        if (extraTraffic.size == 0) {
+            return;
+        }
+        hash = 0;
+        if (containsCorridorsOf(extraTraffic)) {
+            // no new corridors, so the traffic can be added in place
+            for (int i = 0, j = 0; j < extraTraffic.size; i++) {
+                if (ids[i] == extraTraffic.ids[j]) {
+                    amounts[i] += extraTraffic.amounts[j];
+                    j++;
+                }
+            }
+            return;
         }
+        // merge the two records into new arrays, in order of corridor id
+        int length = size + extraTraffic.size;
+        int[] mergedIds = new int[length];
+        Corridor[] mergedCorridors = new Corridor[length];
+        int[] mergedAmounts = new int[length];
+        int i = 0; // position in this record
+        int j = 0; // position in extraTraffic
+        int k = 0; // position in the merged record
+        while (i < size || j < extraTraffic.size) {
+            if (j == extraTraffic.size || (i < size
+                    && ids[i] < extraTraffic.ids[j])) {
+                mergedIds[k] = ids[i];
+                mergedCorridors[k] = corridors[i];
+                mergedAmounts[k] = amounts[i];
+                i++;
+            } else if (i == size || extraTraffic.ids[j] < ids[i]) {
+                mergedIds[k] = extraTraffic.ids[j];
+                mergedCorridors[k] = extraTraffic.corridors[j];
+                mergedAmounts[k] = extraTraffic.amounts[j];
+                j++;
+            } else {
+                mergedIds[k] = ids[i];
+                mergedCorridors[k] = corridors[i];
+                mergedAmounts[k] = amounts[i] + extraTraffic.amounts[j];
+                i++;
+                j++;
+            }
+            k++;
+        }
+        ids = mergedIds;
+        corridors = mergedCorridors;
+        amounts = mergedAmounts;
+        size = k;
+    }
+
+    /**
+     * <p>
+     * This method removes all of the traffic defined by parameter
+     * otherTraffic from this object. It undoes a call to addTraffic with the
+     * same parameter.
+     * </p>
+     * 
+     * <p>
+     * That is, for each traffic corridor c, this method updates the traffic on
+     * that corridor in this object by subtracting from it the traffic that
+     * parameter otherTraffic associates with c.
+     * </p>
+     * 
+     * <p>
+     * If removing the traffic would result in a negative quantity of traffic
+     * on any corridor, then an InvalidTrafficException is thrown and this
+     * object is not changed. (Unless this == otherTraffic) this method must
+     * not modify the given parameter.
+     * </p>
+     * 
+     * @param otherTraffic
+     *            the traffic to be removed from this object
+     * @throws NullPointerException
+     *             if otherTraffic is null
+     * @throws InvalidTrafficException
+     *             if the traffic on any corridor in otherTraffic is greater
+     *             than the traffic on that corridor in this object
+     */
+    public void removeTraffic(Traffic otherTraffic) {
+        if (otherTraffic.size == 0) {
+            return;
+        }
+        if (otherTraffic == this) {
+            hash = 0;
+            Arrays.fill(corridors, 0, size, null);
+            size = 0;
+            return;
+        }
+        // check that no traffic would become negative
+        if (!containsCorridorsOf(otherTraffic)) {
+            throw new InvalidTrafficException(
+                    "Cannot have a negative amount of traffic.");
+        }
+        for (int i = 0, j = 0; j < otherTraffic.size; i++) {
+            if (ids[i] == otherTraffic.ids[j]) {
+                if (amounts[i] < otherTraffic.amounts[j]) {
+                    throw new InvalidTrafficException(
+                            "Cannot have a negative amount of traffic.");
+                }
+                j++;
+            }
+        }
+
+        // subtract the traffic in place, leaving out corridors that have none
+        hash = 0;
+        int j = 0; // position in otherTraffic
+        int k = 0; // position in the updated record
+        for (int i = 0; i < size; i++) {
+            int amount = amounts[i];
+            if (j < otherTraffic.size && ids[i] == otherTraffic.ids[j]) {
+                amount -= otherTraffic.amounts[j];
+                j++;
+            }
+            if (amount > 0) {
+                ids[k] = ids[i];
+                corridors[k] = corridors[i];
+                amounts[k] = amount;
+                k++;
+            }
+        }
+        // release the corridors that no longer have traffic
+        Arrays.fill(corridors, k, size, null);
+        size = k;
     }
 
     /**
@@ -259,11 +546,16 @@ public class Traffic {
      */
     @Override
     public String toString() {
-        String result = ""; // the string representation
-        for (Corridor c : trafficMap.keySet()) {
-            result += c + ": " + trafficMap.get(c) + LINE_SEPARATOR;
+        // the corridors with traffic, in their natural ordering
+        Corridor[] sorted = Arrays.copyOf(corridors, size);
+        Arrays.sort(sorted);
+        // the string representation under construction
+        StringBuilder result = new StringBuilder();
+        for (Corridor c : sorted) {
+            result.append(c).append(": ").append(getTraffic(c)).append(
+                    LINE_SEPARATOR);
         }
-        return result;
+        return result.toString();
     }
 
     /**
@@ -279,18 +571,131 @@ public class Traffic {
      * @return true if this class is internally consistent, and false otherwise.
      */
     public boolean checkInvariant() {
-        if (trafficMap == null) {
+        if (ids == null || corridors == null || amounts == null) {
             return false;
         }
-        if (trafficMap.containsValue(null)) {
+        if (size < 0 || size > ids.length || ids.length != corridors.length
+                || ids.length != amounts.length) {
             return false;
         }
-        for (Corridor c : trafficMap.keySet()) {
-            if (trafficMap.get(c) <= 0) {
+        for (int i = 0; i < size; i++) {
+            if (corridors[i] == null || amounts[i] <= 0
+                    || corridors[i] != CorridorRegistry.intern(corridors[i])
+                    || ids[i] != CorridorRegistry.idOf(corridors[i])) {
+                return false;
+            }
+            if (i > 0 && ids[i - 1] >= ids[i]) {
+                return false;
+            }
+        }
+        return hash == 0 || hash == computeHash();
+    }
+
+    /**
+     * Returns the number of corridors with traffic in this object.
+     * 
+     * @return the number of corridors c for which this.getTraffic(c) > 0
+     */
+    int corridorCount() {
+        return size;
+    }
+
+    /**
+     * Returns the corridor at the given position, where the corridors with
+     * traffic are ordered by their registry ids.
+     * 
+     * @require 0 <= index < corridorCount()
+     * @return the corridor at the given position
+     */
+    Corridor corridorAt(int index) {
+        return corridors[index];
+    }
+
+    /**
+     * Returns the registry id of the corridor at the given position.
+     * 
+     * @require 0 <= index < corridorCount()
+     * @return the registry id of the corridor at the given position
+     */
+    int idAt(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Returns the amount of traffic on the corridor at the given position.
+     * 
+     * @require 0 <= index < corridorCount()
+     * @return the amount of traffic on the corridor at the given position
+     */
+    int amountAt(int index) {
+        return amounts[index];
+    }
+
+    /**
+     * Returns the position of the corridor with the given registry id, if it
+     * has traffic in this object, or (-(insertion point) - 1) otherwise.
+     * 
+     * @return the position of the corridor with the given registry id, or
+     *         (-(insertion point) - 1) if it has no traffic
+     */
+    private int indexOf(int id) {
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    /**
+     * Returns true if every corridor with traffic in other also has traffic in
+     * this object.
+     * 
+     * @require other != null
+     */
+    private boolean containsCorridorsOf(Traffic other) {
+        int i = 0; // position in this record
+        for (int j = 0; j < other.size; j++) {
+            while (i < size && ids[i] < other.ids[j]) {
+                i++;
+            }
+            if (i == size || ids[i] != other.ids[j]) {
                 return false;
             }
         }
         return true;
     }
 
+    /**
+     * Inserts a corridor with the given id and amount of traffic at the given
+     * position, growing the arrays if they are full.
+     * 
+     * @require 0 <= index <= size && amount > 0 && inserting the corridor at
+     *          index keeps the ids in increasing order
+     */
+    private void insertAt(int index, int id, Corridor corridor, int amount) {
+        if (size == ids.length) {
+            int length = Math.max(INITIAL_LENGTH, 2 * ids.length);
+            ids = Arrays.copyOf(ids, length);
+            corridors = Arrays.copyOf(corridors, length);
+            amounts = Arrays.copyOf(amounts, length);
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        System.arraycopy(corridors, index, corridors, index + 1, size - index);
+        System.arraycopy(amounts, index, amounts, index + 1, size - index);
+        ids[index] = id;
+        corridors[index] = corridor;
+        amounts[index] = amount;
+        size++;
+    }
+
+    /**
+     * Removes the corridor at the given position.
+     * 
+     * @require 0 <= index < size
+     */
+    private void removeAt(int index) {
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        System.arraycopy(corridors, index + 1, corridors, index, size - index
+                - 1);
+        System.arraycopy(amounts, index + 1, amounts, index, size - index - 1);
+        size--;
+        corridors[size] = null;
+    }
+
 }
@@ -0,0 +1,98 @@
+package planner;
+
+/**
+ * <p>
+ * An immutable, compact record of the traffic generated by hosting an event
+ * of a particular size at a venue.
+ * </p>
+ * 
+ * <p>
+ * A traffic vector has one entry for each corridor that has traffic when the
+ * venue hosts an event of maximum size, in the same order as the corridors of
+ * the venue's capacity traffic (i.e. in order of their registry ids). Because
+ * of integer truncation, the amount of traffic in an entry may be zero.
+ * </p>
+ */
+final class TrafficVector {
+
+    // the registry ids of the corridors, in increasing order
+    private final int[] ids;
+    // the corridors, at the same positions as their ids
+    private final Corridor[] corridors;
+    // the traffic on each corridor, at the same positions as their ids
+    private final int[] amounts;
+
+    /*
+     * invariant:
+     * 
+     * ids != null && corridors != null && amounts != null &&
+     * 
+     * ids.length == corridors.length == amounts.length &&
+     * 
+     * for each i, ids[i] is the registry id of corridors[i] && amounts[i] >= 0
+     */
+
+    /**
+     * Creates the traffic vector for an event of the given size at the given
+     * venue.
+     * 
+     * @require venue != null && 0 < size <= venue.getCapacity()
+     * @ensure Creates the traffic vector for an event of the given size at the
+     *         given venue. The traffic on each corridor is (size * X) / C,
+     *         where C is the capacity of the venue and X is the traffic on the
+     *         corridor from an event of size C at the venue.
+     */
+    TrafficVector(Venue venue, int size) {
+        // the traffic of an event of maximum size at the venue
+        Traffic capacityTraffic = venue.getCapacityTraffic();
+        int length = capacityTraffic.corridorCount();
+        ids = new int[length];
+        corridors = new Corridor[length];
+        amounts = new int[length];
+        for (int i = 0; i < length; i++) {
+            ids[i] = capacityTraffic.idAt(i);
+            corridors[i] = capacityTraffic.corridorAt(i);
+            amounts[i] = (size * capacityTraffic.amountAt(i)) / venue
+                    .getCapacity();
+        }
+    }
+
+    /**
+     * Returns the number of entries in this vector.
+     * 
+     * @return the number of entries in this vector
+     */
+    int length() {
+        return ids.length;
+    }
+
+    /**
+     * Returns the corridor of the entry at the given position.
+     * 
+     * @require 0 <= index < length()
+     * @return the corridor of the entry at the given position
+     */
+    Corridor corridorAt(int index) {
+        return corridors[index];
+    }
+
+    /**
+     * Returns the amounts of traffic in this vector. The array returned is
+     * shared, and must not be modified.
+     * 
+     * @return the amount of traffic of each entry in this vector
+     */
+    int[] amounts() {
+        return amounts;
+    }
+
+    /**
+     * Returns a new Traffic object recording the traffic in this vector.
+     * 
+     * @return a new Traffic object with the traffic in this vector
+     */
+    Traffic toTraffic() {
+        return new Traffic(ids, corridors, amounts);
+    }
+
+}
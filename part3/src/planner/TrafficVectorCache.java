@@ -0,0 +1,229 @@
+package planner;
+
+import java.util.*;
+
+/**
+ * <p>
+ * A bounded cache of the traffic generated by hosting events of a particular
+ * size at a venue, used by Venue.getTraffic.
+ * </p>
+ * 
+ * <p>
+ * The allocators do not use this cache: they compile their venues into
+ * CompiledVenues, which compute the traffic of an event straight from int
+ * arrays. Its callers are the GUI's model and anything else that asks a
+ * venue for the Traffic of an event.
+ * </p>
+ * 
+ * <p>
+ * The cache is keyed by venue (by identity, since venues are immutable) and
+ * event size. When it is full, the least recently used entry is evicted. The
+ * number of lookups that were (and were not) answered from the cache are
+ * counted.
+ * </p>
+ * 
+ * <p>
+ * The methods of this class are safe to call from multiple threads. A single
+ * lock guards the cache: each lookup holds it only briefly, and the vector of
+ * a missed lookup is computed without holding it.
+ * </p>
+ */
+public class TrafficVectorCache {
+
+    // the maximum number of entries kept by the default cache
+    private final static int DEFAULT_MAXIMUM_SIZE = 4096;
+    // the cache used by Venue.getTraffic
+    private static volatile TrafficVectorCache defaultCache =
+            new TrafficVectorCache(DEFAULT_MAXIMUM_SIZE);
+
+    // the maximum number of entries kept by the cache
+    private final int maximumSize;
+    // the cached traffic vectors, from least to most recently used
+    private final LinkedHashMap<Key, TrafficVector> entries;
+    // the number of lookups answered from the cache
+    private long hits;
+    // the number of lookups that had to compute their traffic vector
+    private long misses;
+
+    /*
+     * invariant:
+     * 
+     * maximumSize > 0 && entries.size() <= maximumSize && hits >= 0 &&
+     * misses >= 0
+     */
+
+    /**
+     * Creates a new, empty cache that holds at most maximumSize traffic
+     * vectors.
+     * 
+     * @param maximumSize
+     *            the maximum number of entries kept by the cache
+     * @throws IllegalArgumentException
+     *             if maximumSize is less than or equal to zero
+     */
+    public TrafficVectorCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException(
+                    "The maximum size of the cache must be greater than 0.");
+        }
+        this.maximumSize = maximumSize;
+        entries = new LinkedHashMap<Key, TrafficVector>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<Key, TrafficVector> eldest) {
+                return size() > TrafficVectorCache.this.maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cache used by Venue.getTraffic.
+     * 
+     * @return the default traffic vector cache
+     */
+    public static TrafficVectorCache getDefault() {
+        return defaultCache;
+    }
+
+    /**
+     * Replaces the cache used by Venue.getTraffic, e.g. to give it a
+     * different maximum size. Lookups that have already started may still
+     * use the old cache.
+     * 
+     * @param cache
+     *            the cache for Venue.getTraffic to use
+     * @throws NullPointerException
+     *             if cache is null
+     */
+    public static void setDefault(TrafficVectorCache cache) {
+        if (cache == null) {
+            throw new NullPointerException("The cache cannot be null.");
+        }
+        defaultCache = cache;
+    }
+
+    /**
+     * Returns the traffic vector for an event of the given size at the given
+     * venue, computing and caching it if it is not already in the cache.
+     * 
+     * @require venue != null && 0 < size <= venue.getCapacity()
+     * @ensure Returns the traffic vector for an event of the given size at the
+     *         given venue.
+     */
+    TrafficVector get(Venue venue, int size) {
+        // the key of the vector in the cache
+        Key key = new Key(venue, size);
+        synchronized (this) {
+            TrafficVector vector = entries.get(key);
+            if (vector != null) {
+                hits++;
+                return vector;
+            }
+            misses++;
+        }
+        // computed outside the lock; if two threads race, both compute the
+        // same (immutable) vector and the last one is kept
+        TrafficVector vector = new TrafficVector(venue, size);
+        synchronized (this) {
+            entries.put(key, vector);
+        }
+        return vector;
+    }
+
+    /**
+     * Returns true if the traffic vector for an event of the given size at
+     * the given venue is in the cache. (This does not count as a lookup, or
+     * as a use of the entry.)
+     * 
+     * @param venue
+     *            the venue hosting the event
+     * @param size
+     *            the size of the event
+     * @return true if the vector for the venue and size is cached
+     */
+    public synchronized boolean contains(Venue venue, int size) {
+        return entries.containsKey(new Key(venue, size));
+    }
+
+    /**
+     * Returns the maximum number of entries kept by the cache.
+     * 
+     * @return the maximum number of entries kept by the cache
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns the number of traffic vectors currently in the cache.
+     * 
+     * @return the number of traffic vectors currently in the cache
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of lookups that were answered from the cache.
+     * 
+     * @return the number of cache hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that were not answered from the cache.
+     * 
+     * @return the number of cache misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Removes every entry from the cache, and resets the hit and miss
+     * counters to zero.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * The key of a traffic vector in the cache: a venue, compared by
+     * identity, and an event size.
+     */
+    private static class Key {
+
+        // the venue hosting the event
+        private final Venue venue;
+        // the size of the event
+        private final int size;
+
+        private Key(Venue venue, int size) {
+            this.venue = venue;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) object; // the key to compare
+            return venue == other.venue && size == other.size;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31; // an odd base prime
+            int result = 1; // the hash code under construction
+            result = prime * result + System.identityHashCode(venue);
+            result = prime * result + size;
+            return result;
+        }
+    }
+
+}
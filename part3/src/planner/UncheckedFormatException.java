@@ -0,0 +1,34 @@
+package planner;
+
+/**
+ * An unchecked exception that wraps a FormatException, for reporting format
+ * errors from methods that cannot throw checked exceptions (such as the
+ * methods of an Iterator or a Stream).
+ */
+@SuppressWarnings("serial")
+public class UncheckedFormatException extends RuntimeException {
+
+    /**
+     * Constructs a new exception wrapping the given FormatException, with the
+     * same detail message.
+     * 
+     * @param cause
+     *            the FormatException being wrapped
+     * @throws NullPointerException
+     *             if cause is null
+     */
+    public UncheckedFormatException(FormatException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    /**
+     * Returns the FormatException wrapped by this exception.
+     * 
+     * @return the FormatException wrapped by this exception
+     */
+    @Override
+    public FormatException getCause() {
+        return (FormatException) super.getCause();
+    }
+
+}
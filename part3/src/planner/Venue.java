@@ -157,13 +157,29 @@ public class Venue {
             throw new IllegalArgumentException(
                     "The size of the event cannot exceed the venue's capacity");
         }
-        Traffic result = new Traffic(); // the traffic generated by the event
-        for (Corridor c : capacityTraffic.getCorridorsWithTraffic()) {
-            int traffic = (event.getSize() * capacityTraffic.getTraffic(c))
-                    / capacity;
-            result.updateTraffic(c, traffic);
-        }
-        return result;
+        return getTrafficVector(event.getSize()).toTraffic();
+    }
+
+    /**
+     * Returns the traffic vector for an event of the given size at this venue,
+     * from the default TrafficVectorCache.
+     * 
+     * @require 0 < size <= capacity
+     * @ensure Returns the traffic vector for an event of the given size at
+     *         this venue.
+     */
+    TrafficVector getTrafficVector(int size) {
+        return TrafficVectorCache.getDefault().get(this, size);
+    }
+
+    /**
+     * Returns the traffic generated by hosting an event of size capacity at
+     * this venue. The object returned must not be modified.
+     * 
+     * @return the traffic generated by an event of maximum size at the venue
+     */
+    Traffic getCapacityTraffic() {
+        return capacityTraffic;
     }
 
     /**
@@ -217,17 +233,15 @@ public class Venue {
     public int hashCode() {
         /*
          * We create a polynomial hash-code based on name and capacity and
-         * capacityTraffic.
-         * 
-         * We will cheat a bit here and use the fact that traffic objects that
-         * are the same according to the sameTraffic method will produce the
-         * same string representation. There might be neater ways to do this.
+         * capacityTraffic. Traffic objects that are the same according to the
+         * sameTraffic method have the same structural hash, which is cached
+         * by the traffic object, so this method does not allocate.
          */
         final int prime = 31; // an odd base prime
         int result = 1; // the hash code under construction
         result = prime * result + name.hashCode();
         result = prime * result + capacity;
-        result = prime * result + (capacityTraffic.toString()).hashCode();
+        result = prime * result + capacityTraffic.structuralHash();
         return result;
     }
 
@@ -0,0 +1,394 @@
+package planner;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * <p>
+ * A list of venues read from a binary venue catalogue: a compact snapshot of
+ * a list of venues that can be loaded without parsing and validating the
+ * text format read by VenueReader.
+ * </p>
+ *
+ * <p>
+ * A catalogue is written by the write method, and opened by the open method.
+ * Opening a catalogue maps the file into memory and reads its location and
+ * corridor tables, but each venue is only materialised the first time it is
+ * requested from the list. The list cannot be modified.
+ * </p>
+ *
+ * <p>
+ * A catalogue file holds, in order (with each int a big-endian 32-bit
+ * integer, and each string an int byte length followed by that many bytes of
+ * UTF-8):
+ * </p>
+ *
+ * <ul>
+ * <li>a header: the int MAGIC, the int VERSION;</li>
+ * <li>a location table: an int count, followed by the name (a string) of
+ * each location;</li>
+ * <li>a corridor table: an int count, followed by the start location index,
+ * end location index and capacity (three ints) of each corridor;</li>
+ * <li>a venue index: an int count, followed by the position in the file (an
+ * int) of the record of each venue;</li>
+ * <li>the venue records: the name (a string), capacity (an int) and the number
+ * of corridors with traffic (an int) of each venue, followed by the corridor
+ * index and amount of traffic (two ints) of each of those corridors.</li>
+ * </ul>
+ */
+public class VenueCatalogue extends AbstractList<Venue> implements
+        RandomAccess {
+
+    // the first int of every venue catalogue ("VENU" in ASCII)
+    private final static int MAGIC = 0x56454E55;
+    // the version of the format written by this class
+    private final static int VERSION = 1;
+
+    // the contents of the catalogue file
+    private ByteBuffer buffer;
+    // the locations and corridors in the catalogue, by index
+    private Location[] locations;
+    private Corridor[] corridors;
+    // the position in buffer of the venue index (just after its count)
+    private int venueIndex;
+    // the number of venues in the catalogue
+    private int venueCount;
+    // the venues that have been materialised (null for those that have not)
+    private Venue[] venues;
+
+    /*
+     * invariant:
+     *
+     * buffer != null && locations != null && corridors != null && venues !=
+     * null && venues.length == venueCount &&
+     *
+     * every location and corridor in the catalogue is valid
+     */
+
+    /**
+     * Creates a catalogue from the contents of a catalogue file, reading its
+     * location and corridor tables.
+     *
+     * @require buffer != null
+     * @throws FormatException
+     *             if the header, location table, corridor table or venue index
+     *             is not correctly formatted
+     */
+    private VenueCatalogue(ByteBuffer buffer) throws FormatException {
+        this.buffer = buffer;
+        try {
+            if (buffer.getInt(0) != MAGIC) {
+                throw new FormatException("Not a venue catalogue.");
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new FormatException("Unsupported catalogue version "
+                        + buffer.getInt(4) + ".");
+            }
+            int position = 8; // the position being read
+            locations = new Location[readCount(position, 4)];
+            position += 4;
+            for (int i = 0; i < locations.length; i++) {
+                // the length of the name of the location, in bytes
+                int length = readCount(position, 1);
+                locations[i] = LocationRegistry.intern(readString(position));
+                position += 4 + length;
+            }
+            corridors = new Corridor[readCount(position, 12)];
+            position += 4;
+            for (int i = 0; i < corridors.length; i++) {
+                int start = buffer.getInt(position);
+                int end = buffer.getInt(position + 4);
+                int capacity = buffer.getInt(position + 8);
+                if (start < 0 || start >= locations.length || end < 0
+                        || end >= locations.length || start == end
+                        || capacity <= 0) {
+                    throw new FormatException("Invalid corridor " + i
+                            + " in venue catalogue.");
+                }
+                corridors[i] = CorridorRegistry.intern(new Corridor(
+                        locations[start], locations[end], capacity));
+                position += 12;
+            }
+            venueCount = readCount(position, 4);
+            venueIndex = position + 4;
+            venues = new Venue[venueCount];
+        } catch (IndexOutOfBoundsException e) {
+            throw new FormatException("Venue catalogue is truncated.");
+        } catch (IllegalArgumentException e) {
+            // two locations in the table have the same name
+            throw new FormatException("Invalid corridor in venue catalogue.");
+        }
+    }
+
+    /**
+     * Writes the given venues to a venue catalogue file called fileName, in
+     * the format read by the open method. If the file exists, it is
+     * replaced.
+     *
+     * <p>
+     * The catalogue is written to a temporary file in the same directory,
+     * which is then moved over fileName in one atomic step. A catalogue
+     * already opened from fileName keeps the old file mapped, so it can still
+     * read its venues after the file has been replaced.
+     * </p>
+     *
+     * @param venues
+     *            the venues to write
+     * @param fileName
+     *            the name of the file to write to
+     * @throws NullPointerException
+     *             if venues or fileName is null, or venues contains null
+     * @throws IOException
+     *             if there is an error writing to the file, or the catalogue
+     *             would be larger than 2GB
+     */
+    public static void write(List<Venue> venues, String fileName)
+            throws IOException {
+        // the index of each location and corridor in the catalogue
+        Map<Location, Integer> locationIndex = new LinkedHashMap<>();
+        Map<Corridor, Integer> corridorIndex = new LinkedHashMap<>();
+        // the name of each location and venue, encoded in UTF-8
+        List<byte[]> locationNames = new ArrayList<>();
+        List<byte[]> venueNames = new ArrayList<>();
+        long size = 5 * 4; // the size of the file, starting with its ints
+        for (Venue venue : venues) {
+            Traffic traffic = venue.getCapacityTraffic();
+            for (int i = 0; i < traffic.corridorCount(); i++) {
+                Corridor corridor = traffic.corridorAt(i);
+                for (Location location : Arrays.asList(corridor.getStart(),
+                        corridor.getEnd())) {
+                    if (!locationIndex.containsKey(location)) {
+                        locationIndex.put(location, locationIndex.size());
+                        locationNames.add(location.getName().getBytes(
+                                StandardCharsets.UTF_8));
+                        size += 4 + locationNames.get(locationNames.size()
+                                - 1).length;
+                    }
+                }
+                if (!corridorIndex.containsKey(corridor)) {
+                    corridorIndex.put(corridor, corridorIndex.size());
+                    size += 3 * 4;
+                }
+            }
+        }
+        // the position of the first venue record
+        long position = size + 4L * venues.size();
+        size = position;
+        for (Venue venue : venues) {
+            venueNames.add(venue.getName().getBytes(StandardCharsets.UTF_8));
+            size += 4 + venueNames.get(venueNames.size() - 1).length + 2 * 4
+                    + 2 * 4 * venue.getCapacityTraffic().corridorCount();
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("A venue catalogue cannot be larger than "
+                    + "2GB.");
+        }
+
+        // the file to replace, and the temporary file written in its place
+        Path target = Paths.get(fileName).toAbsolutePath();
+        Path temporary = Files.createTempFile(target.getParent(), target
+                .getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(
+                            temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(locationNames.size());
+                for (byte[] name : locationNames) {
+                    out.writeInt(name.length);
+                    out.write(name);
+                }
+                out.writeInt(corridorIndex.size());
+                for (Corridor corridor : corridorIndex.keySet()) {
+                    out.writeInt(locationIndex.get(corridor.getStart()));
+                    out.writeInt(locationIndex.get(corridor.getEnd()));
+                    out.writeInt(corridor.getCapacity());
+                }
+                out.writeInt(venues.size());
+                for (int v = 0; v < venues.size(); v++) {
+                    out.writeInt((int) position);
+                    position += 4 + venueNames.get(v).length + 2 * 4 + 2 * 4
+                            * venues.get(v).getCapacityTraffic()
+                                    .corridorCount();
+                }
+                for (int v = 0; v < venues.size(); v++) {
+                    Traffic traffic = venues.get(v).getCapacityTraffic();
+                    out.writeInt(venueNames.get(v).length);
+                    out.write(venueNames.get(v));
+                    out.writeInt(venues.get(v).getCapacity());
+                    out.writeInt(traffic.corridorCount());
+                    for (int i = 0; i < traffic.corridorCount(); i++) {
+                        out.writeInt(corridorIndex.get(traffic.corridorAt(
+                                i)));
+                        out.writeInt(traffic.amountAt(i));
+                    }
+                }
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Opens the venue catalogue file called fileName, written by the write
+     * method, by mapping it into memory. The location and corridor tables are
+     * read straight away, but each venue is only read the first time it is
+     * requested from the list returned.
+     *
+     * @param fileName
+     *            the name of the file to open
+     * @return the list of venues in the catalogue, in the order in which they
+     *         were written
+     * @throws IOException
+     *             if there is an error reading from the file, or it is larger
+     *             than 2GB
+     * @throws FormatException
+     *             if the file is not a venue catalogue, or its location table,
+     *             corridor table or venue index is not correctly formatted
+     */
+    public static VenueCatalogue open(String fileName) throws IOException,
+            FormatException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+                StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("A venue catalogue cannot be larger "
+                        + "than 2GB.");
+            }
+            // the mapping remains valid after the channel is closed
+            return new VenueCatalogue(channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the venue at the given position in the catalogue, reading it
+     * from the file if it has not been requested before.
+     *
+     * @param index
+     *            the position of the venue in the catalogue
+     * @return the venue at the given position
+     * @throws IndexOutOfBoundsException
+     *             if index is less than zero, or greater than or equal to
+     *             size()
+     * @throws UncheckedFormatException
+     *             if the record of the venue is not correctly formatted, or
+     *             does not describe a valid venue
+     */
+    @Override
+    public synchronized Venue get(int index) {
+        if (index < 0 || index >= venueCount) {
+            throw new IndexOutOfBoundsException("No venue at position "
+                    + index + " of the catalogue.");
+        }
+        if (venues[index] == null) {
+            try {
+                venues[index] = readVenue(index);
+            } catch (FormatException e) {
+                throw new UncheckedFormatException(e);
+            }
+        }
+        return venues[index];
+    }
+
+    /**
+     * Returns the number of venues in the catalogue.
+     *
+     * @return the number of venues in the catalogue
+     */
+    @Override
+    public int size() {
+        return venueCount;
+    }
+
+    /**
+     * Reads the record of the venue at the given position in the catalogue.
+     *
+     * @require 0 <= index < size()
+     * @throws FormatException
+     *             if the record of the venue is not correctly formatted, or
+     *             does not describe a valid venue
+     */
+    private Venue readVenue(int index) throws FormatException {
+        try {
+            int position = buffer.getInt(venueIndex + 4 * index);
+            // the length of the name of the venue, in bytes
+            int length = readCount(position, 1);
+            String name = readString(position);
+            position += 4 + length;
+            int capacity = buffer.getInt(position);
+            int trafficCount = readCount(position + 4, 8);
+            position += 8;
+            Traffic traffic = new Traffic();
+            for (int i = 0; i < trafficCount; i++) {
+                int corridor = buffer.getInt(position);
+                int amount = buffer.getInt(position + 4);
+                if (corridor < 0 || corridor >= corridors.length
+                        || amount <= 0 || traffic.getTraffic(
+                                corridors[corridor]) > 0) {
+                    throw new FormatException("Invalid traffic in venue "
+                            + index + " of venue catalogue.");
+                }
+                traffic.updateTraffic(corridors[corridor], amount);
+                position += 8;
+            }
+            return new Venue(name, capacity, traffic);
+        } catch (IndexOutOfBoundsException e) {
+            throw new FormatException("Venue catalogue is truncated.");
+        } catch (IllegalArgumentException | InvalidTrafficException e) {
+            throw new FormatException("Invalid venue " + index
+                    + " in venue catalogue.");
+        }
+    }
+
+    /**
+     * Reads the number of items of a table or string at the given position
+     * of the buffer, where each item takes up at least itemLength bytes after
+     * the count.
+     *
+     * @require itemLength > 0
+     * @throws FormatException
+     *             if the count is negative
+     * @throws IndexOutOfBoundsException
+     *             if the count, or that many items, are not in the buffer
+     */
+    private int readCount(int position, int itemLength)
+            throws FormatException {
+        int count = buffer.getInt(position);
+        if (count < 0) {
+            throw new FormatException("Invalid count in venue catalogue.");
+        }
+        if ((long) count * itemLength > buffer.limit() - position - 4) {
+            throw new IndexOutOfBoundsException();
+        }
+        return count;
+    }
+
+    /**
+     * Reads a string (an int byte length followed by that many bytes of
+     * UTF-8) at the given position of the buffer.
+     *
+     * @throws FormatException
+     *             if the length of the string is negative
+     * @throws IndexOutOfBoundsException
+     *             if the string is not in the buffer
+     */
+    private String readString(int position) throws FormatException {
+        int length = readCount(position, 1);
+        // the bytes of the string
+        byte[] bytes = new byte[length];
+        // a view of the buffer, so that the position of buffer itself never
+        // changes
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + 4);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,21 @@
+package planner;
+
+/**
+ * The orders in which an allocation search can try the venues for an event.
+ */
+public enum VenueOrder {
+
+    /**
+     * Try the venues in the order they are given.
+     */
+    GIVEN,
+
+    /**
+     * Try the venues at which the event has the least corridor impact first,
+     * where the corridor impact of an event at a venue is the total traffic
+     * the event causes there, as a proportion of the capacity of each
+     * corridor.
+     */
+    LEAST_IMPACT_FIRST
+
+}
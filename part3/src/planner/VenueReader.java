@@ -3,9 +3,11 @@ package planner;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.*;
 
 /**
- * Provides a method to read in a list of venues from a text file.
+ * Provides methods to read in venues from a text file, either all at once as
+ * a list, or one at a time as an iterator or a stream.
  */
 public class VenueReader {
 
@@ -116,47 +118,265 @@ public class VenueReader {
      */
     public static List<Venue> read(String fileName) throws IOException,
             FormatException {
-        // scanner for reading the file a line at a time
-        Scanner in = new Scanner(new FileReader(fileName));
-        // the number of the line being read
-        AtomicInteger lineNumber = new AtomicInteger(0);
         // the venues that will be read from the file
         List<Venue> venues = new ArrayList<>();
+        try (VenueIterator in = iterator(fileName)) {
+            while (in.hasNext()) {
+                venues.add(in.nextVenue());
+            }
+        }
+        return venues;
+    }
 
-        // read venues one at a time from the file
-        while (in.hasNextLine()) {
-            // the name, capacity, and traffic of the venue being read
-            String name = readVenueName(lineNumber, in);
-            int capacity = readVenueCapacity(lineNumber, in);
-            Traffic capacityTraffic = readTraffic(lineNumber, in, capacity);
-            // the venue read
-            Venue venue = new Venue(name, capacity, capacityTraffic);
+    /**
+     * <p>
+     * Opens the text file called fileName, which describes the venues in a
+     * municipality in the format described by the read method, and returns an
+     * iterator over the venues in the file, in the order that they appear in
+     * the file.
+     * </p>
+     * 
+     * <p>
+     * The venues are read from the file one at a time, as they are requested
+     * from the iterator. A format error in the file is only detected when the
+     * venue it is part of is read. If a format error is detected, the
+     * iterator's next method throws an UncheckedFormatException wrapping a
+     * FormatException with the same message as the read method would give,
+     * and the file is closed. (The nextVenue method throws the
+     * FormatException itself.)
+     * </p>
+     * 
+     * <p>
+     * The iterator should be closed when it is no longer needed, to close the
+     * file.
+     * </p>
+     * 
+     * @param fileName
+     *            the name of the file to read from.
+     * @return an iterator over the venues in the file
+     * @throws IOException
+     *             if the file cannot be opened for reading.
+     */
+    public static VenueIterator iterator(String fileName) throws IOException {
+        return new VenueIterator(new LineReader(new FileReader(fileName)));
+    }
 
-            if (venues.contains(venue)) {
-                throw new FormatException("Line " + lineNumber
-                        + ": duplicate venue detected.");
+    /**
+     * <p>
+     * Opens the text file called fileName, which describes the venues in a
+     * municipality in the format described by the read method, and returns a
+     * sequential stream of the venues in the file, in the order that they
+     * appear in the file.
+     * </p>
+     * 
+     * <p>
+     * The venues are read from the file one at a time, as the stream consumes
+     * them. If a format error is detected, the stream throws an
+     * UncheckedFormatException wrapping a FormatException with the same
+     * message as the read method would give. Closing the stream closes the
+     * file, so the stream should be used in a try-with-resources statement.
+     * </p>
+     * 
+     * @param fileName
+     *            the name of the file to read from.
+     * @return a stream of the venues in the file
+     * @throws IOException
+     *             if the file cannot be opened for reading.
+     */
+    public static Stream<Venue> stream(String fileName) throws IOException {
+        VenueIterator venues = iterator(fileName);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                venues, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(venues::close);
+    }
+
+    /**
+     * <p>
+     * An iterator over the venues described by a text file, that reads the
+     * venues one at a time as they are requested.
+     * </p>
+     * 
+     * <p>
+     * Closing the iterator closes the file. The file is also closed when the
+     * last venue has been read, or when a format error is detected.
+     * </p>
+     */
+    public static class VenueIterator implements Iterator<Venue>, Closeable {
+
+        // reader for reading the file a line at a time
+        private LineReader in;
+        // the number of the last line read
+        private AtomicInteger lineNumber;
+        // the venues read so far, to detect duplicate venues
+        private Set<Venue> venues;
+        // whether or not the file has been closed
+        private boolean closed;
+
+        /**
+         * Creates an iterator over the venues read from the given reader.
+         * 
+         * @require in != null && in is open for reading
+         */
+        private VenueIterator(LineReader in) {
+            this(in, 0);
+        }
+
+        /**
+         * Creates an iterator over the venues read from the given reader,
+         * where the reader starts just after line linesBefore of the file.
+         * (The line numbers in format errors count the lines before the
+         * reader.)
+         * 
+         * @require in != null && in is open for reading && linesBefore >= 0
+         */
+        VenueIterator(LineReader in, int linesBefore) {
+            this.in = in;
+            lineNumber = new AtomicInteger(linesBefore);
+            venues = new HashSet<>();
+            closed = false;
+        }
+
+        /**
+         * Returns the number of the last line read.
+         * 
+         * @return the number of the last line read
+         */
+        int getLineNumber() {
+            return lineNumber.get();
+        }
+
+        /**
+         * Returns the number of characters of the file that have been read so
+         * far, so that a caller can report how far through the file it is.
+         * 
+         * @return the number of characters read so far
+         */
+        public long getCharactersRead() {
+            return in.getCharactersConsumed();
+        }
+
+        /**
+         * Returns true if there is another venue description to read (i.e.
+         * the file has not been closed and there is another line in it), and
+         * false otherwise.
+         * 
+         * @return true if there is another venue description to read
+         * @throws UncheckedIOException
+         *             if there is an error reading from the file
+         */
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (!in.hasNextLine()) {
+                    close();
+                    return false;
+                }
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+            return true;
+        }
+
+        /**
+         * Reads and returns the next venue from the file.
+         * 
+         * @return the next venue from the file
+         * @throws NoSuchElementException
+         *             if there are no more venues to read
+         * @throws UncheckedFormatException
+         *             if the description of the venue is not correctly
+         *             formatted, or the venue is a duplicate of one that was
+         *             read before it
+         * @throws UncheckedIOException
+         *             if there is an error reading from the file
+         */
+        @Override
+        public Venue next() {
+            try {
+                return nextVenue();
+            } catch (FormatException e) {
+                throw new UncheckedFormatException(e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Reads and returns the next venue from the file.
+         * 
+         * @return the next venue from the file
+         * @throws NoSuchElementException
+         *             if there are no more venues to read
+         * @throws FormatException
+         *             if the description of the venue is not correctly
+         *             formatted, or the venue is a duplicate of one that was
+         *             read before it. The file is closed before the exception
+         *             is thrown.
+         * @throws IOException
+         *             if there is an error reading from the file. The file is
+         *             closed before the exception is thrown.
+         */
+        public Venue nextVenue() throws FormatException, IOException {
+            try {
+                if (closed || !in.hasNextLine()) {
+                    throw new NoSuchElementException(
+                            "No more venues to read.");
+                }
+                // the name, capacity, and traffic of the venue being read
+                String name = readVenueName(lineNumber, in);
+                int capacity = readVenueCapacity(lineNumber, in);
+                Traffic capacityTraffic = readTraffic(lineNumber, in,
+                        capacity);
+                // the venue read
+                Venue venue = new Venue(name, capacity, capacityTraffic);
+
+                if (!venues.add(venue)) {
+                    throw new FormatException("Line " + lineNumber
+                            + ": duplicate venue detected.");
+                }
+                return venue;
+            } catch (FormatException | IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * Closes the file that the venues are read from.
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // nothing more can be read, so the error can be ignored
+                }
             }
-            venues.add(venue);
         }
-        return venues;
     }
 
     /**
-     * Consumes the next line from the scanner, returning the venue name read
+     * Consumes the next line from the reader, returning the venue name read
      * from that line.
      * 
      * @require in!=null && in is open for reading
-     * @ensure Consumes the next line from scanner, and returns the venue name
-     *         from that line (i.e. the whole line). The lineNumber is
+     * @ensure Consumes the next line from the reader, and returns the venue
+     *         name from that line (i.e. the whole line). The lineNumber is
      *         incremented once for each line that is consumed from in.
      * @throws FormatException
-     *             if there is no next line in the scanner, or the line is the
+     *             if there is no next line in the reader, or the line is the
      *             empty string "" (i.e. a venue name can't be the empty
      *             string). The exception has a message that identifies the
      *             lineNumber given, and describes the nature of the error.
      */
-    private static String readVenueName(AtomicInteger lineNumber, Scanner in)
-            throws FormatException {
+    private static String readVenueName(AtomicInteger lineNumber, LineReader in)
+            throws FormatException, IOException {
         // the name of the venue to be read from the next line
         String name = null;
         if (in.hasNextLine()) {
@@ -174,27 +394,27 @@ public class VenueReader {
     }
 
     /**
-     * Consumes the next line from the scanner, returning the venue capacity
+     * Consumes the next line from the reader, returning the venue capacity
      * read from that line.
      * 
      * @require in!=null && in is open for reading
-     * @ensure reads next line from scanner, and returns the venue capacity from
-     *         that line. The lineNumber is incremented once for each line that
-     *         is consumed from in.
+     * @ensure reads next line from the reader, and returns the venue capacity
+     *         from that line. The lineNumber is incremented once for each
+     *         line that is consumed from in.
      * @throws FormatException
-     *             if there is no next line in the scanner, or the line does not
+     *             if there is no next line in the reader, or the line does not
      *             contain one positive integer denoting the venue capacity. The
      *             exception has a message that identifies the lineNumber given,
      *             and describes the nature of the error.
      */
-    private static int readVenueCapacity(AtomicInteger lineNumber, Scanner in)
-            throws FormatException {
+    private static int readVenueCapacity(AtomicInteger lineNumber,
+            LineReader in) throws FormatException, IOException {
         if (!in.hasNextLine()) {
             throw new FormatException("Line " + lineNumber
                     + ": venue capacity expected, but line is missing.");
         }
 
-        // the capacity to be read the next line from the scanner
+        // the capacity to be read the next line from the reader
         int capacity = 0;
         try {
             // the line holding the capacity
@@ -213,54 +433,40 @@ public class VenueReader {
     }
 
     /**
-     * Consumes zero or more lines from the scanner, where each line denotes a
+     * Consumes zero or more lines from the reader, where each line denotes a
      * corridor object and its traffic, until an empty line is consumed. Returns
      * a traffic object containing the traffic read from each of the lines. Each
      * of the traffic lines is of the form "START, END, CAPACITY: TRAFFIC" (e.g.
      * "l0, l1, 100: 50").
      *
      * @require in!=null && in is open for reading
-     * @ensure Consumes zero or more lines from the scanner, each denoting the
+     * @ensure Consumes zero or more lines from the reader, each denoting the
      *         amount of traffic on different corridors, until an empty line is
      *         consumed, and returns the traffic read from those lines. The
      *         lineNumber is incremented once for each line that is consumed
-     *         from the scanner in.
+     *         from the reader in.
      * @throws FormatException
      *             If any one of the traffic lines read are incorrectly
-     *             formatted; if the end of the scanner is reached before an
+     *             formatted; if the end of the reader is reached before an
      *             empty line is found; if the same corridor appears in more
      *             than one line; or if the traffic on a corridor exceeds the
      *             venue capacity given, or its capacity. The exception has a
      *             message that identifies the lineNumber given, and describes
      *             the nature of the error.
      */
-    private static Traffic readTraffic(AtomicInteger lineNumber, Scanner in,
-            int venueCapacity) throws FormatException {
-        // the traffic read from the scanner
+    private static Traffic readTraffic(AtomicInteger lineNumber,
+            LineReader in, int venueCapacity) throws FormatException,
+            IOException {
+        // the traffic read from the reader
         Traffic capacityTraffic = new Traffic();
         // the current line being read
         String line = getNextLine(lineNumber, in);
         while (!line.equals(EMPTY_LINE)) {
-            // scanner for that line
-            Scanner lineScanner = new Scanner(line);
-            lineScanner.useDelimiter(": ");
-            try {
-                // e.g. "l0, l1, 100: 50"
-                Corridor corridor = readCorridor(lineNumber, lineScanner);
-                int amount = readTraffic(lineNumber, lineScanner, corridor
-                        .getCapacity(), venueCapacity);
-
-                if (lineScanner.hasNext()) {
-                    throw new FormatException("Line " + lineNumber
-                            + ": extra information on line.");
-                }
-                if (capacityTraffic.getTraffic(corridor) > 0) {
-                    throw new FormatException("Line " + lineNumber
-                            + ": corridor appears more than once.");
-                }
-                capacityTraffic.updateTraffic(corridor, amount);
-            } finally {
-                lineScanner.close();
+            // e.g. "l0, l1, 100: 50"
+            if (!readSimpleTrafficLine(lineNumber, line, venueCapacity,
+                    capacityTraffic)) {
+                readTrafficLine(lineNumber, line, venueCapacity,
+                        capacityTraffic);
             }
             line = getNextLine(lineNumber, in); // read the next line
         }
@@ -268,10 +474,153 @@ public class VenueReader {
     }
 
     /**
-     * Consumes and returns the next line from the given scanner.
+     * <p>
+     * Reads a traffic line that is in its simple form, and adds the traffic
+     * it describes to capacityTraffic. Returns false, without reading
+     * anything, if the line is not in its simple form.
+     * </p>
+     * 
+     * <p>
+     * A line is in its simple form if it is of the form "START, END, CAPACITY:
+     * TRAFFIC", where START and END are non-empty strings that contain no
+     * commas or colons, and CAPACITY and TRAFFIC are strings of one to nine
+     * ASCII digits. (This is how nearly every traffic line in a venue file is
+     * written.) A line in its simple form is split up using index arithmetic
+     * alone, rather than with a Scanner. Any other line is left to
+     * readTrafficLine, so that both methods find exactly the same problems
+     * with a line, and report them with the same messages.
+     * </p>
+     * 
+     * @require line != null && capacityTraffic != null
+     * @ensure Returns false if line is not in its simple form. Otherwise adds
+     *         the traffic described by the line to capacityTraffic, and
+     *         returns true. lineNumber is unchanged by this operation.
+     * @throws FormatException
+     *             If the line is in its simple form, but the corridor is
+     *             invalid or already has traffic in capacityTraffic, or the
+     *             amount of traffic is out of bounds. The exception has a
+     *             message that identifies the lineNumber given, and describes
+     *             the nature of the error.
+     */
+    private static boolean readSimpleTrafficLine(AtomicInteger lineNumber,
+            String line, int venueCapacity, Traffic capacityTraffic)
+            throws FormatException {
+        // the positions of the separators ", ", ", " and ": "
+        int colon = line.indexOf(':');
+        int firstComma = line.indexOf(',');
+        int secondComma = line.indexOf(',', firstComma + 1);
+        if (colon < 0 || line.indexOf(':', colon + 1) >= 0 || firstComma <= 0
+                || secondComma < 0 || secondComma > colon || line.indexOf(
+                        ',', secondComma + 1) >= 0) {
+            return false;
+        }
+        if (!line.startsWith(" ", firstComma + 1) || !line.startsWith(" ",
+                secondComma + 1) || !line.startsWith(" ", colon + 1)
+                || secondComma == firstComma + 2) {
+            return false;
+        }
+        int capacity = parseDigits(line, secondComma + 2, colon);
+        int amount = parseDigits(line, colon + 2, line.length());
+        if (capacity < 0 || amount < 0) {
+            return false;
+        }
+
+        String startName = line.substring(0, firstComma);
+        String endName = line.substring(firstComma + 2, secondComma);
+        if (capacity == 0 || startName.equals(endName)) {
+            throw new FormatException("Line " + lineNumber
+                    + ": invalid corridor.");
+        }
+        Corridor corridor = CorridorRegistry.intern(new Corridor(
+                LocationRegistry.intern(startName), LocationRegistry.intern(
+                        endName), capacity));
+        checkTraffic(lineNumber, amount, capacity, venueCapacity);
+        addTraffic(lineNumber, capacityTraffic, corridor, amount);
+        return true;
+    }
+
+    /**
+     * Returns the non-negative integer written in ASCII digits from position
+     * start to position end - 1 of the given string, or -1 if that part of
+     * the string is empty, longer than nine characters, or contains anything
+     * other than ASCII digits.
+     * 
+     * @require string != null && 0 <= start <= end <= string.length()
+     */
+    private static int parseDigits(String string, int start, int end) {
+        if (start == end || end - start > 9) {
+            return -1;
+        }
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            char c = string.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = 10 * result + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Reads a traffic line of the form "START, END, CAPACITY: TRAFFIC" using
+     * a Scanner, and adds the traffic it describes to capacityTraffic.
+     * 
+     * @require line != null && capacityTraffic != null
+     * @ensure Adds the traffic described by the line to capacityTraffic.
+     *         lineNumber is unchanged by this operation.
+     * @throws FormatException
+     *             If the line is incorrectly formatted, the corridor already
+     *             has traffic in capacityTraffic, or the amount of traffic is
+     *             out of bounds. The exception has a message that identifies
+     *             the lineNumber given, and describes the nature of the error.
+     */
+    private static void readTrafficLine(AtomicInteger lineNumber, String line,
+            int venueCapacity, Traffic capacityTraffic)
+            throws FormatException {
+        // scanner for that line
+        Scanner lineScanner = new Scanner(line);
+        lineScanner.useDelimiter(": ");
+        try {
+            Corridor corridor = readCorridor(lineNumber, lineScanner);
+            int amount = readTraffic(lineNumber, lineScanner, corridor
+                    .getCapacity(), venueCapacity);
+
+            if (lineScanner.hasNext()) {
+                throw new FormatException("Line " + lineNumber
+                        + ": extra information on line.");
+            }
+            addTraffic(lineNumber, capacityTraffic, corridor, amount);
+        } finally {
+            lineScanner.close();
+        }
+    }
+
+    /**
+     * Adds amount traffic on the given corridor to capacityTraffic.
+     * 
+     * @require capacityTraffic != null && corridor != null && amount > 0
+     * @ensure Adds amount traffic on the given corridor to capacityTraffic.
+     * @throws FormatException
+     *             If the corridor already has traffic in capacityTraffic. The
+     *             exception has a message that identifies the lineNumber
+     *             given.
+     */
+    private static void addTraffic(AtomicInteger lineNumber,
+            Traffic capacityTraffic, Corridor corridor, int amount)
+            throws FormatException {
+        if (capacityTraffic.getTraffic(corridor) > 0) {
+            throw new FormatException("Line " + lineNumber
+                    + ": corridor appears more than once.");
+        }
+        capacityTraffic.updateTraffic(corridor, amount);
+    }
+
+    /**
+     * Consumes and returns the next line from the given reader.
      *
      * @require in!=null && in is open for reading
-     * @ensure Consumes and returns the next line from the given scanner. The
+     * @ensure Consumes and returns the next line from the given reader. The
      *         lineNumber is incremented once for each line that is consumed
      *         from in.
      * @throws FormatException
@@ -279,8 +628,8 @@ public class VenueReader {
      *             exception has a message that identifies the lineNumber given,
      *             and describes the nature of the error.
      */
-    private static String getNextLine(AtomicInteger lineNumber, Scanner in)
-            throws FormatException {
+    private static String getNextLine(AtomicInteger lineNumber, LineReader in)
+            throws FormatException, IOException {
         String line = null;
         if (in.hasNextLine()) {
             line = in.nextLine();
@@ -328,8 +677,9 @@ public class VenueReader {
                 throw new FormatException("Line " + lineNumber
                         + ": invalid corridor.");
             }
-            return new Corridor(new Location(startName), new Location(endName),
-                    capacity);
+            return CorridorRegistry.intern(new Corridor(LocationRegistry
+                    .intern(startName), LocationRegistry.intern(endName),
+                    capacity));
         } finally {
             scanner.close();
         }
@@ -362,6 +712,21 @@ public class VenueReader {
                     + ": traffic is missing or incorrectly formatted.");
         }
         int amount = lineScanner.nextInt();
+        checkTraffic(lineNumber, amount, corridorCapacity, venueCapacity);
+        return amount;
+    }
+
+    /**
+     * Checks that an amount of traffic is greater than zero and less than or
+     * equal to corridorCapacity and the venueCapacity.
+     * 
+     * @throws FormatException
+     *             If the amount of traffic is out of bounds. The exception has
+     *             a message that identifies the lineNumber given, and
+     *             describes the nature of the error.
+     */
+    private static void checkTraffic(AtomicInteger lineNumber, int amount,
+            int corridorCapacity, int venueCapacity) throws FormatException {
         if (amount <= 0) {
             throw new FormatException("Line " + lineNumber
                     + ": traffic is less than or equal to zero.");
@@ -376,7 +741,6 @@ public class VenueReader {
                     + ": traffic exceeds either the venue capacity.");
 
         }
-        return amount;
     }
 
 }
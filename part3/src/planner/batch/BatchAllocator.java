@@ -0,0 +1,199 @@
+package planner.batch;
+
+import planner.*;
+
+import java.io.*;
+import java.lang.management.*;
+import java.util.*;
+
+/**
+ * <p>
+ * A command-line program that allocates a list of events to the venues of a
+ * municipality without a display, for running allocation as a batch job.
+ * </p>
+ *
+ * <p>
+ * The venues are read from a venue file (in the format described by the read
+ * method of the VenueReader class) and the events from an event file (in the
+ * format described by the read method of the EventReader class). If a safe
+ * allocation is found, it is written to the output file, with one line of the
+ * form "NAME (SIZE): VENUE" for each event, in the order the events are
+ * listed in the event file.
+ * </p>
+ *
+ * <p>
+ * A report is printed of the wall time taken to read the files and to search
+ * for the allocation, the number of nodes the search explored and pruned
+ * (and how often it recognised a dead end it had already explored), the peak
+ * utilisation of the allocation, and the peak size of the heap.
+ * </p>
+ *
+ * <p>
+ * Usage: java planner.batch.BatchAllocator [-config=FILE] [-solver=NAME]
+ * [-optimal] [-events=ORDER] [-venues=ORDER] VENUE_FILE EVENT_FILE
+ * OUTPUT_FILE<br>
+ * where -config reads the configuration of the solver (as described by
+ * AllocationSolvers.create) from a properties file, and the other options
+ * override properties of the configuration: -solver sets "solver" (e.g.
+ * "greedy" or "annealing"), -optimal is short for -solver=optimal, and
+ * -events and -venues set "eventOrder" and "venueOrder" to the name of an
+ * EventOrder or VenueOrder constant. By default, the first safe allocation
+ * found by a backtracking search is written.
+ * </p>
+ *
+ * <p>
+ * The exit status is 0 if an allocation was written, 1 if no safe allocation
+ * was found (which, for a heuristic solver, does not prove that there is
+ * none), and 2 if the arguments or input files are invalid.
+ * </p>
+ */
+public class BatchAllocator {
+
+    // the exit status when no safe allocation was found
+    private final static int NO_ALLOCATION = 1;
+    // the exit status when the arguments or input files are invalid
+    private final static int INVALID_INPUT = 2;
+
+    // the usage message
+    private final static String USAGE = "Usage: java planner.batch"
+            + ".BatchAllocator [-config=FILE] [-solver=NAME] [-optimal]"
+            + " [-events=ORDER] [-venues=ORDER] VENUE_FILE EVENT_FILE"
+            + " OUTPUT_FILE";
+
+    public static void main(String[] args) {
+        // the configuration of the solver, and the options overriding it
+        Properties configuration = new Properties();
+        Properties options = new Properties();
+        // the venue, event and output file names
+        List<String> files = new ArrayList<>();
+        // the solver used to find the allocation
+        AllocationSolver solver = null;
+        try {
+            for (String arg : args) {
+                if (arg.startsWith("-config=")) {
+                    try (Reader in = new FileReader(arg.substring(8))) {
+                        configuration.load(in);
+                    }
+                } else if (arg.startsWith("-solver=")) {
+                    options.setProperty("solver", arg.substring(8));
+                } else if (arg.equals("-optimal")) {
+                    options.setProperty("solver", "optimal");
+                } else if (arg.startsWith("-events=")) {
+                    options.setProperty("eventOrder", arg.substring(8));
+                } else if (arg.startsWith("-venues=")) {
+                    options.setProperty("venueOrder", arg.substring(8));
+                } else if (arg.startsWith("-")) {
+                    throw new IllegalArgumentException("Unknown option " + arg);
+                } else {
+                    files.add(arg);
+                }
+            }
+            configuration.putAll(options);
+            solver = AllocationSolvers.create(configuration);
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            files.clear();
+        }
+        if (files.size() != 3) {
+            System.err.println(USAGE);
+            System.exit(INVALID_INPUT);
+        }
+
+        long start = System.nanoTime();
+        List<Venue> venues;
+        List<Event> events;
+        try {
+            venues = new ParallelVenueReader().read(files.get(0));
+        } catch (IOException | FormatException e) {
+            System.err.println(files.get(0) + ": " + e.getMessage());
+            System.exit(INVALID_INPUT);
+            return;
+        }
+        long venuesRead = System.nanoTime();
+        try {
+            events = EventReader.read(files.get(1));
+        } catch (IOException | FormatException e) {
+            System.err.println(files.get(1) + ": " + e.getMessage());
+            System.exit(INVALID_INPUT);
+            return;
+        }
+        long eventsRead = System.nanoTime();
+
+        AllocationResult result = solver.solve(events, venues);
+        long allocated = System.nanoTime();
+
+        if (result.getAllocation() != null) {
+            try {
+                write(files.get(2), events, result.getAllocation());
+            } catch (IOException e) {
+                System.err.println(files.get(2) + ": " + e.getMessage());
+                System.exit(INVALID_INPUT);
+            }
+        }
+        long written = System.nanoTime();
+
+        System.out.println("Venues:          " + venues.size() + " read in "
+                + millis(start, venuesRead));
+        System.out.println("Events:          " + events.size() + " read in "
+                + millis(venuesRead, eventsRead));
+        System.out.println("Allocation:      " + (result
+                .getAllocation() == null ? "no safe allocation found"
+                        : String.format("peak utilisation %.3f", result
+                                .getPeakUtilisation())) + " in " + millis(
+                                        eventsRead, allocated));
+        System.out.println("Search:          " + solver + ", " + result
+                .getStatistics());
+        System.out.println("Wall time:       " + millis(start, written));
+        System.out.println("Peak heap:       " + peakHeapUsed() / (1 << 20)
+                + " MB");
+        if (result.getAllocation() == null) {
+            System.exit(NO_ALLOCATION);
+        }
+    }
+
+    /**
+     * Writes the allocation of each of the events to the file called
+     * fileName, in the order of the events.
+     *
+     * @require every event is a key of allocation
+     * @throws IOException
+     *             if there is an error writing to the file
+     */
+    private static void write(String fileName, List<Event> events,
+            Map<Event, Venue> allocation) throws IOException {
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(
+                new FileWriter(fileName)))) {
+            for (Event event : events) {
+                out.println(event + ": " + allocation.get(event).getName());
+            }
+            if (out.checkError()) {
+                throw new IOException("Error writing the allocation.");
+            }
+        }
+    }
+
+    /**
+     * Returns the time in milliseconds between the given nano times, as a
+     * string.
+     */
+    private static String millis(long from, long to) {
+        return String.format("%.1f ms", (to - from) / 1e6);
+    }
+
+    /**
+     * Returns the peak number of bytes used by the heap since the virtual
+     * machine started, i.e. the sum of the peak usage of each of its heap
+     * memory pools.
+     */
+    private static long peakHeapUsed() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory
+                .getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+}
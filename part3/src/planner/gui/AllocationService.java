@@ -0,0 +1,127 @@
+package planner.gui;
+
+import planner.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+
+/**
+ * A service that searches for a safe allocation of events to venues with the
+ * Allocator on a background thread, so that the window stays responsive
+ * during a long search.
+ *
+ * The value of a task that succeeds is the allocation found, or null if there
+ * is no safe allocation. Cancelling the service stops the search, which
+ * notices that it has been stopped between the allocations it tries.
+ *
+ * The size of the search is not known in advance, so the progress of a task
+ * is indeterminate until it finishes; only its message reports what it is
+ * doing.
+ */
+public class AllocationService extends Service<Map<Event, Venue>> {
+
+    // the events to allocate
+    private ObjectProperty<List<Event>> events = new SimpleObjectProperty<>(
+            this, "events", new ArrayList<>());
+    // the venues the events can be allocated to
+    private ObjectProperty<List<Venue>> venues = new SimpleObjectProperty<>(
+            this, "venues", new ArrayList<>());
+
+    /**
+     * Sets the events that the next task created allocates.
+     *
+     * @param value
+     *          the events to allocate
+     */
+    public final void setEvents(List<Event> value) {
+        events.set(value);
+    }
+
+    /**
+     * Returns the events that the next task created allocates.
+     *
+     * @return the events to allocate
+     */
+    public final List<Event> getEvents() {
+        return events.get();
+    }
+
+    /**
+     * Returns the property holding the events to allocate.
+     *
+     * @return the events property
+     */
+    public final ObjectProperty<List<Event>> eventsProperty() {
+        return events;
+    }
+
+    /**
+     * Sets the venues that the next task created allocates events to.
+     *
+     * @param value
+     *          the venues to allocate events to
+     */
+    public final void setVenues(List<Venue> value) {
+        venues.set(value);
+    }
+
+    /**
+     * Returns the venues that the next task created allocates events to.
+     *
+     * @return the venues to allocate events to
+     */
+    public final List<Venue> getVenues() {
+        return venues.get();
+    }
+
+    /**
+     * Returns the property holding the venues to allocate events to.
+     *
+     * @return the venues property
+     */
+    public final ObjectProperty<List<Venue>> venuesProperty() {
+        return venues;
+    }
+
+    @Override
+    protected Task<Map<Event, Venue>> createTask() {
+        // copies of the events and venues, so that the task is not affected
+        // by changes made on the application thread while it runs
+        final List<Event> taskEvents = new ArrayList<>(getEvents());
+        final List<Venue> taskVenues = new ArrayList<>(getVenues());
+        return new Task<Map<Event, Venue>>() {
+
+            // the flag that stops the search when the task is cancelled
+            private final AtomicBoolean stopped = new AtomicBoolean(false);
+
+            @Override
+            protected Map<Event, Venue> call() {
+                updateMessage("Allocating " + taskEvents.size()
+                        + " events to " + taskVenues.size() + " venues...");
+                Map<Event, Venue> allocation = Allocator.allocate(taskEvents,
+                        taskVenues, stopped);
+                if (allocation == null && !stopped.get()) {
+                    updateMessage("There is no safe allocation of the "
+                            + taskEvents.size() + " events.");
+                } else if (allocation != null) {
+                    updateMessage("Allocated " + taskEvents.size()
+                            + " events.");
+                }
+                updateProgress(1, 1);
+                return allocation;
+            }
+
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                // the search does not check for interrupts, so stop it
+                stopped.set(true);
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+    }
+}
@@ -4,7 +4,6 @@ import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import planner.*;
 
-import java.io.IOException;
 import java.util.*;
 
 import javafx.scene.control.Alert;
@@ -24,6 +23,11 @@ public class EventAllocatorController {
     // list of venues loaded from file to send to model
     private List<Venue> loadedVenues;
 
+    // the services that load venues and auto allocate events in the
+    // background, so that the window stays responsive
+    private VenueLoadService venueLoader;
+    private AllocationService autoAllocator;
+
     /**
      * Initialises the controller for the event allocator program.
      * 
@@ -36,35 +40,84 @@ public class EventAllocatorController {
             EventAllocatorView view) {
         this.model = model;
         this.view = view;
-        loadVenueFile("venues.txt");
-        this.model.setVenues(loadedVenues);
-        this.view.populateVenueChoices(this.model.getVenues());
         view.addSubmitEventHandler(new EventAllocationHandler());
         view.addRemoveEventHandler(new EventRemovalHandler());
-
+        view.addAutoAllocateHandler(new AutoAllocationHandler());
+        view.addCancelHandler(new CancelHandler());
+        createAutoAllocator();
+        loadVenueFile("venues.txt");
     }
     
     /**
-     * Loads venues from supplied venues text file.
-     * Provides a list of venues for processing by model.
+     * Loads venues from supplied venues text file in the background.
+     * Provides a list of venues for processing by model once they have all
+     * been read. If the load is cancelled, the user can reload the file or
+     * exit, since there are no venues to allocate events to.
      * 
      * @require fileName != "" && fileName != null
      * @param fileName
      * 			The name of the text file holding venue information.
      */
     private void loadVenueFile(String fileName) {
-        // Load venues from file
-    	try {
-			loadedVenues = new ArrayList<>(VenueReader.read(fileName));
-		} catch (IOException | FormatException e) {
-			System.out.println(e.toString());
-			Alert alert = new Alert(AlertType.ERROR, e.toString(), 
-					ButtonType.CLOSE);
-			alert.showAndWait();
-			if (alert.getResult() == ButtonType.CLOSE) {
-				System.exit(-1);
-			}
-		}
+        venueLoader = new VenueLoadService();
+        venueLoader.setFileName(fileName);
+        venueLoader.setOnSucceeded(event -> {
+            loadedVenues = new ArrayList<>(venueLoader.getValue());
+            model.setVenues(loadedVenues);
+            view.populateVenueChoices(model.getVenues());
+        });
+        venueLoader.setOnFailed(event -> {
+            // Load failed: IOException or FormatException from file
+            Throwable e = venueLoader.getException();
+            System.out.println(e.toString());
+            Alert alert = new Alert(AlertType.ERROR, e.toString(),
+                    ButtonType.CLOSE);
+            alert.showAndWait();
+            if (alert.getResult() == ButtonType.CLOSE) {
+                System.exit(-1);
+            }
+        });
+        venueLoader.setOnCancelled(event -> {
+            // Load cancelled by the user: there are no venues to allocate to
+            Alert alert = new Alert(AlertType.CONFIRMATION,
+                    "Loading venues was cancelled. Reload the venues?",
+                    ButtonType.YES, ButtonType.CLOSE);
+            alert.showAndWait();
+            if (alert.getResult() == ButtonType.YES) {
+                loadVenueFile(fileName);
+            } else {
+                System.exit(-1);
+            }
+        });
+        view.showProgress(venueLoader);
+        venueLoader.start();
+    }
+
+    /**
+     * Creates the service that auto allocates events in the background, and
+     * updates the model and views with each allocation it finds.
+     */
+    private void createAutoAllocator() {
+        autoAllocator = new AllocationService();
+        autoAllocator.setOnSucceeded(event -> {
+            Map<Event, Venue> allocation = autoAllocator.getValue();
+            if (allocation == null) {
+                Alert alert = new Alert(AlertType.ERROR,
+                        "No venue allocation keeps traffic safe for all"
+                        + " events!", ButtonType.CLOSE);
+                alert.showAndWait();
+                return;
+            }
+            model.replaceAllocations(allocation);
+            view.populateAllocationsView();
+            view.populateTrafficView();
+        });
+        autoAllocator.setOnFailed(event -> {
+            Alert alert = new Alert(AlertType.ERROR,
+                    autoAllocator.getException().toString(),
+                    ButtonType.CLOSE);
+            alert.showAndWait();
+        });
     }
 
     /**
@@ -128,7 +181,55 @@ public class EventAllocatorController {
     }
 
     /**
-     * Checks if chosen allocation is valid using model validity check methods.
+     * Event handler for allocating the event entered by the user together with
+     * every event already allocated, choosing venues for all of them, upon
+     * pressing auto allocate button. The search runs in the background, and
+     * the allocations are replaced when it finds a safe allocation.
+     */
+    private class AutoAllocationHandler implements EventHandler<ActionEvent> {
+        @Override
+        public void handle(ActionEvent event) {
+            // Get Event Name and Size inputs
+            String eventName = view.getEventNameInput();
+            int eventSize;
+            try {
+                eventSize = view.getEventSizeInput();
+            } catch (NumberFormatException e) {
+                Alert alert = new Alert(AlertType.ERROR,
+                        "Event Size must be an integer!", ButtonType.CLOSE);
+                alert.showAndWait();
+                return;
+            }
+            if (checkEvent(eventName, eventSize)) {
+                List<Event> events = new ArrayList<>(
+                        model.getAllocations().keySet());
+                events.add(model.createEvent(eventName, eventSize));
+                autoAllocator.setEvents(events);
+                autoAllocator.setVenues(model.getVenues());
+                view.showProgress(autoAllocator);
+                autoAllocator.restart();
+            }
+        }
+    }
+
+    /**
+     * Event handler to cancel the background task that is running (loading
+     * venues or auto allocating events) upon pressing cancel button.
+     */
+    private class CancelHandler implements EventHandler<ActionEvent> {
+        @Override
+        public void handle(ActionEvent event) {
+            if (venueLoader.isRunning()) {
+                venueLoader.cancel();
+            }
+            if (autoAllocator.isRunning()) {
+                autoAllocator.cancel();
+            }
+        }
+    }
+
+    /**
+     * Checks if chosen event is valid using model validity check methods.
      *
      * Will show alert for source of error.
      *
@@ -136,12 +237,9 @@ public class EventAllocatorController {
      *          Event name set by user.
      * @param eventSize
      *          Event size set by user.
-     * @param venue
-     *          Venue selected by user.
-     * @return true if allocation is valid, else false.
+     * @return true if event is valid and not yet allocated, else false.
      */
-    private boolean checkAllocation(String eventName, int eventSize,
-                                    Venue venue) {
+    private boolean checkEvent(String eventName, int eventSize) {
         // Check if event name is valid
         if (!model.validEventName(eventName)) {
             Alert alert = new Alert(AlertType.ERROR,
@@ -164,6 +262,29 @@ public class EventAllocatorController {
             alert.showAndWait();
             return false;
         }
+        // Event is valid
+        return true;
+    }
+
+    /**
+     * Checks if chosen allocation is valid using model validity check methods.
+     *
+     * Will show alert for source of error.
+     *
+     * @param eventName
+     *          Event name set by user.
+     * @param eventSize
+     *          Event size set by user.
+     * @param venue
+     *          Venue selected by user.
+     * @return true if allocation is valid, else false.
+     */
+    private boolean checkAllocation(String eventName, int eventSize,
+                                    Venue venue) {
+        if (!checkEvent(eventName, eventSize)) {
+            return false;
+        }
+        Event testEvent = new Event(eventName, eventSize);
         // Check if venue already allocated
         if (model.duplicateVenue(venue)) {
             Alert alert = new Alert(AlertType.ERROR,
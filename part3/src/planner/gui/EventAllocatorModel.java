@@ -12,6 +12,8 @@ public class EventAllocatorModel {
 	private List<Venue> venues;
 	// Map of Events and assigned Venues
 	private Map<Event, Venue> allocations;
+	// Map of Venues and the Event assigned to each (the reverse of allocations)
+	private Map<Venue, Event> venueAllocations;
 	// Current traffic caused by allocation
 	private Traffic traffic;
 
@@ -21,6 +23,7 @@ public class EventAllocatorModel {
     public EventAllocatorModel() {
     	venues = new ArrayList<>();
     	allocations = new HashMap<>();
+    	venueAllocations = new HashMap<>();
     	traffic = new Traffic();
     }
 
@@ -62,10 +65,19 @@ public class EventAllocatorModel {
      *          Size of event to be removed.
      */
     public void removeAllocation(String name, int size) {
-        // Remove from allocation if name and size matches an event allocated.
-        allocations.keySet().removeIf(e ->
-                e.getName().equals(name) && e.getSize() == size);
-        updateTraffic();
+        if (name == null || size <= 0) {
+            // No event allocated could have this name and size.
+            return;
+        }
+        // Events are equal iff their names and sizes are equal, so this
+        // finds the allocated event with the given name and size.
+        Event event = new Event(name, size);
+        Venue venue = allocations.remove(event);
+        if (venue != null) {
+            // Remove the traffic that the allocation generated.
+            venueAllocations.remove(venue);
+            traffic.removeTraffic(venue.getTraffic(event));
+        }
     }
 
     /**
@@ -96,8 +108,9 @@ public class EventAllocatorModel {
      * i) Event name is not ""
      * ii) Event size > 0
      * iii) Event not already allocated to a Venue
-     * iv) Venue capacity >= Event size
-     * v) Traffic is safe
+     * iv) Venue not already allocated an Event
+     * v) Venue capacity >= Event size
+     * vi) Traffic is safe
      * 
      * That is, allocation should only occur after the requirements have been
      * confirmed.
@@ -108,12 +121,20 @@ public class EventAllocatorModel {
      *          The Venue allocated to Event.
      */
     public void allocateEvent(Event event, Venue venue) {
-        allocations.put(event, venue);
-        updateTraffic();
+        // Venue the event was previously allocated to, if any.
+        Venue previous = allocations.put(event, venue);
+        if (previous != null) {
+            venueAllocations.remove(previous);
+            traffic.removeTraffic(previous.getTraffic(event));
+        }
+        venueAllocations.put(venue, event);
+        traffic.addTraffic(venue.getTraffic(event));
     }
 
     /**
-     * Updates traffic after each new allocation or each removal of allocation.
+     * Recalculates traffic from every allocation. (Traffic is kept up to date
+     * by allocateEvent and removeAllocation, so this is not needed after each
+     * new allocation or removal of allocation.)
      *
      */
     public void updateTraffic() {
@@ -123,6 +144,23 @@ public class EventAllocatorModel {
         });
     }
 
+    /**
+     * Replaces every current allocation with the given allocations, such as
+     * an allocation of the whole schedule found by the Allocator.
+     *
+     * That is, the new allocations should already meet the requirements of
+     * allocateEvent, taken together.
+     *
+     * @param newAllocations
+     *          The allocations to replace the current allocations with.
+     */
+    public void replaceAllocations(Map<Event, Venue> newAllocations) {
+        allocations.clear();
+        venueAllocations.clear();
+        traffic = new Traffic();
+        newAllocations.forEach(this::allocateEvent);
+    }
+
     /* Methods to check validity of event and allocation */
 
     /**
@@ -170,7 +208,7 @@ public class EventAllocatorModel {
      * @return true if venue already has allocation, else false
      */
     public boolean duplicateVenue(Venue venue) {
-        return allocations.containsValue(venue);
+        return venueAllocations.containsKey(venue);
     }
 
     /**
@@ -196,9 +234,7 @@ public class EventAllocatorModel {
      * @return true if adding new allocation is safe for traffic, else false
      */
     public boolean trafficIsSafe(Event event, Venue venue) {
-    	Traffic trafficCheck = new Traffic(traffic);
-    	trafficCheck.addTraffic(venue.getTraffic(event));
-    	return trafficCheck.isSafe();
+    	return traffic.isSafeWith(venue.getTraffic(event));
     }
 
 }
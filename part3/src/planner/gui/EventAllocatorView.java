@@ -5,6 +5,7 @@ import java.util.*;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Worker;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.scene.control.*;
@@ -43,6 +44,12 @@ public class EventAllocatorView {
     // Buttons
     private Button submitEvent;
     private Button deleteEvent;
+    private Button autoAllocate;
+    // Status bar for background tasks
+    private HBox statusBar;
+    private Label statusMessage;
+    private ProgressBar taskProgress;
+    private Button cancelTask;
     // List Views Allocations, Traffic
     private ListView<String> allocationList;
     private ListView<Traffic> trafficList;
@@ -66,6 +73,7 @@ public class EventAllocatorView {
         // Build GUI panels
         constructEventAllocation();
         constructMainView();
+        constructStatusBar();
         setMainGridConstraints();
     }
 
@@ -154,10 +162,42 @@ public class EventAllocatorView {
         deleteEvent.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
         mainViews.add(deleteEvent, 0, 2);
 
+        // Auto Allocate Events Button
+        autoAllocate = new Button("Auto Allocate Events");
+        autoAllocate.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+        mainViews.add(autoAllocate, 1, 2);
+
         // Add to Root Pane
         rootPane.setCenter(mainViews);
     }
 
+    /**
+     * Constructs status bar at bottom of window, showing the progress of
+     * tasks running in the background (loading venues and auto allocation).
+     */
+    private void constructStatusBar() {
+        statusBar = new HBox(10);
+        statusBar.setPadding(new Insets(5, 10, 5, 10));
+        statusBar.setAlignment(Pos.CENTER_LEFT);
+
+        // Message and progress of the current task
+        statusMessage = new Label();
+        statusMessage.setMaxWidth(Double.MAX_VALUE);
+        HBox.setHgrow(statusMessage, Priority.ALWAYS);
+        taskProgress = new ProgressBar(0);
+        taskProgress.setVisible(false);
+
+        // Cancel Task Button
+        cancelTask = new Button("Cancel");
+        cancelTask.setDisable(true);
+
+        statusBar.getChildren().addAll(statusMessage, taskProgress,
+                cancelTask);
+
+        // Add to Root Pane
+        rootPane.setBottom(statusBar);
+    }
+
     /**
      * Set constraints of MainView GridPane to fill entire window.
      * Adapted from lectures.
@@ -184,7 +224,7 @@ public class EventAllocatorView {
      * 			List of venues in this municipality.
      */
     public void populateVenueChoices(List<Venue> venues) {
-        venueOptions.addAll(venues);
+        venueOptions.setAll(venues);
         venueSelectBox.setItems(venueOptions);
     }
 
@@ -273,4 +313,42 @@ public class EventAllocatorView {
     public void addRemoveEventHandler(EventHandler<ActionEvent> handler) {
         deleteEvent.setOnAction(handler);
     }
-}
\ No newline at end of file
+
+    /**
+     * Adds handler to Auto Allocate Events Button.
+     *
+     * @param handler
+     *          the handler to be added by Controller.
+     */
+    public void addAutoAllocateHandler(EventHandler<ActionEvent> handler) {
+        autoAllocate.setOnAction(handler);
+    }
+
+    /**
+     * Adds handler to Cancel Button of status bar.
+     *
+     * @param handler
+     *          the handler to be added by Controller.
+     */
+    public void addCancelHandler(EventHandler<ActionEvent> handler) {
+        cancelTask.setOnAction(handler);
+    }
+
+    /**
+     * Shows the message and progress of a background task in the status bar.
+     * While the task is running, the buttons that change the allocations are
+     * disabled and the Cancel Button is enabled.
+     *
+     * @param worker
+     *          the background task (or service) to show.
+     */
+    public void showProgress(Worker<?> worker) {
+        statusMessage.textProperty().bind(worker.messageProperty());
+        taskProgress.progressProperty().bind(worker.progressProperty());
+        taskProgress.visibleProperty().bind(worker.runningProperty());
+        cancelTask.disableProperty().bind(worker.runningProperty().not());
+        submitEvent.disableProperty().bind(worker.runningProperty());
+        deleteEvent.disableProperty().bind(worker.runningProperty());
+        autoAllocate.disableProperty().bind(worker.runningProperty());
+    }
+}
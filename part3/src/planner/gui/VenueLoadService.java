@@ -0,0 +1,91 @@
+package planner.gui;
+
+import planner.*;
+
+import java.io.File;
+import java.util.*;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+
+/**
+ * A service that reads venues from a file on a background thread, so that the
+ * window stays responsive while a large venue file is loaded.
+ *
+ * The venues are read one at a time, and a message with the number of venues
+ * read so far is reported as they are read, together with the progress
+ * through the file (the characters read out of the length of the file).
+ * Cancelling the service stops the read after the venue that is being read.
+ */
+public class VenueLoadService extends Service<List<Venue>> {
+
+    // the number of venues read between updates of the message
+    private final static int UPDATE_INTERVAL = 1000;
+
+    // the name of the file to read venues from
+    private StringProperty fileName = new SimpleStringProperty(this,
+            "fileName");
+
+    /**
+     * Sets the name of the file that the next task created reads from.
+     *
+     * @param value
+     *          the name of the venue file
+     */
+    public final void setFileName(String value) {
+        fileName.set(value);
+    }
+
+    /**
+     * Returns the name of the file that the next task created reads from.
+     *
+     * @return the name of the venue file
+     */
+    public final String getFileName() {
+        return fileName.get();
+    }
+
+    /**
+     * Returns the property holding the name of the venue file.
+     *
+     * @return the file name property
+     */
+    public final StringProperty fileNameProperty() {
+        return fileName;
+    }
+
+    @Override
+    protected Task<List<Venue>> createTask() {
+        // the file read by the task, fixed when the task is created
+        final String file = getFileName();
+        return new Task<List<Venue>>() {
+            @Override
+            protected List<Venue> call() throws Exception {
+                updateMessage("Loading venues from " + file + "...");
+                // the length of the file, which is (about) the number of
+                // characters in it
+                long length = new File(file).length();
+                updateProgress(0, Math.max(1, length));
+                // the venues read so far
+                List<Venue> venues = new ArrayList<>();
+                try (VenueReader.VenueIterator in = VenueReader.iterator(
+                        file)) {
+                    while (!isCancelled() && in.hasNext()) {
+                        venues.add(in.nextVenue());
+                        if (venues.size() % UPDATE_INTERVAL == 0) {
+                            updateMessage("Loaded " + venues.size()
+                                    + " venues...");
+                            updateProgress(Math.min(in.getCharactersRead(),
+                                    length), Math.max(1, length));
+                        }
+                    }
+                }
+                updateMessage("Loaded " + venues.size() + " venues.");
+                updateProgress(1, 1);
+                return venues;
+            }
+        };
+    }
+}
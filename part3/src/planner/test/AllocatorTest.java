@@ -0,0 +1,606 @@
+package planner.test;
+
+import planner.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.Before;
+
+/**
+ * Basic tests for the {@link Allocator} implementation class.
+ */
+public class AllocatorTest {
+
+    // locations to test with
+    private Location[] locations;
+    // corridors to test with
+    private Corridor[] corridors;
+    // venues to test with
+    private List<Venue> venues;
+
+    /**
+     * This method is run by JUnit before each test to initialise instance
+     * variables locations, corridors and venues.
+     */
+    @Before
+    public void setUp() {
+        locations = new Location[3];
+        locations[0] = new Location("l0");
+        locations[1] = new Location("l1");
+        locations[2] = new Location("l2");
+
+        corridors = new Corridor[2];
+        corridors[0] = new Corridor(locations[0], locations[1], 100);
+        corridors[1] = new Corridor(locations[1], locations[2], 60);
+
+        // v0 and v1 share corridor 0, v2 uses corridor 1 only
+        venues = new ArrayList<>();
+        venues.add(createVenue("v0", 100, 80, 0));
+        venues.add(createVenue("v1", 100, 80, 40));
+        venues.add(createVenue("v2", 50, 0, 50));
+    }
+
+    /**
+     * Test that allocate finds a safe allocation when one exists.
+     */
+    @Test
+    public void testAllocateSafe() {
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 100));
+        events.add(new Event("e1", 50));
+
+        // the allocation found
+        Map<Event, Venue> allocation = Allocator.allocate(events, venues);
+        Assert.assertNotNull(allocation);
+        Assert.assertEquals(events.size(), allocation.size());
+        checkSafe(allocation);
+    }
+
+    /**
+     * Test that allocate with a stopped flag finds a safe allocation if it is
+     * not stopped, and stops without one if it is.
+     */
+    @Test
+    public void testAllocateStopped() {
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 100));
+        events.add(new Event("e1", 50));
+
+        // the allocation found
+        Map<Event, Venue> allocation = Allocator.allocate(events, venues,
+                new AtomicBoolean(false));
+        Assert.assertNotNull(allocation);
+        Assert.assertEquals(events.size(), allocation.size());
+        checkSafe(allocation);
+
+        Assert.assertNull(Allocator.allocate(events, venues,
+                new AtomicBoolean(true)));
+    }
+
+    /**
+     * Test that allocate returns null when there is no safe allocation.
+     */
+    @Test
+    public void testAllocateUnsafe() {
+        List<Event> events = new ArrayList<>();
+        // both events must be held at v0 or v1, overloading corridor 0
+        events.add(new Event("e0", 100));
+        events.add(new Event("e1", 90));
+        Assert.assertNull(Allocator.allocate(events, venues));
+    }
+
+    /**
+     * Test that allocate returns null when there are more events than venues.
+     */
+    @Test
+    public void testAllocateTooManyEvents() {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            events.add(new Event("e" + i, 1));
+        }
+        Assert.assertNull(Allocator.allocate(events, venues));
+    }
+
+    /**
+     * Test that allocate returns null when there are not enough venues large
+     * enough to host the events, even though there are as many venues as
+     * events.
+     */
+    @Test
+    public void testAllocateNotEnoughLargeVenues() {
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 60));
+        events.add(new Event("e1", 60));
+        events.add(new Event("e2", 60));
+        Assert.assertNull(Allocator.allocate(events, venues));
+        Assert.assertTrue(Allocator.allAllocations(events, venues).isEmpty());
+    }
+
+    /**
+     * Test that allAllocations finds every safe allocation, and that allocate
+     * returns one of them.
+     */
+    @Test
+    public void testAllAllocations() {
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 50));
+        events.add(new Event("e1", 50));
+
+        // the copy of venues, to check that venues is not modified
+        List<Venue> venuesCopy = new ArrayList<>(venues);
+        Set<Map<Event, Venue>> allocations = Allocator.allAllocations(events,
+                venues);
+        Assert.assertEquals(venuesCopy, venues);
+        // only the pair (v1, v2) is unsafe: it puts 70 on corridor 1
+        Assert.assertEquals(4, allocations.size());
+        for (Map<Event, Venue> allocation : allocations) {
+            checkSafe(allocation);
+        }
+        Assert.assertTrue(allocations.contains(Allocator.allocate(events,
+                venues)));
+    }
+
+    /**
+     * Test that firstAllocation finds the same allocation as allocate, and
+     * records its peak utilisation and the work done by the search.
+     */
+    @Test
+    public void testFirstAllocation() {
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 50));
+        events.add(new Event("e1", 50));
+
+        // (v0, v1) is found first, with a peak of 80/100 on corridor 0
+        AllocationResult result = Allocator.firstAllocation(events, venues,
+                EventOrder.GIVEN, VenueOrder.GIVEN);
+        Assert.assertEquals(Allocator.allocate(events, venues), result
+                .getAllocation());
+        Assert.assertEquals(0.8, result.getPeakUtilisation(), 1e-9);
+        Assert.assertEquals(3, result.getStatistics().getNodesExplored());
+
+        events.add(new Event("e2", 50));
+        result = Allocator.firstAllocation(events, venues, EventOrder.GIVEN,
+                VenueOrder.GIVEN);
+        Assert.assertNull(result.getAllocation());
+        Assert.assertTrue(Double.isNaN(result.getPeakUtilisation()));
+    }
+
+    /**
+     * Test that firstAllocation recognises a residual problem it has already
+     * failed to solve, rather than exploring it again.
+     */
+    @Test
+    public void testFirstAllocationDeadEnds() {
+        // n events that each fit at any of n venues on one corridor, which
+        // only has room for n - 1 of them: without recognising dead ends, the
+        // search would try all n! orders of the venues
+        int n = 14;
+        Corridor corridor = new Corridor(locations[0], locations[2], n - 1);
+        List<Venue> manyVenues = new ArrayList<>();
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Traffic traffic = new Traffic();
+            traffic.updateTraffic(corridor, 1);
+            manyVenues.add(new Venue("v" + i, 1, traffic));
+            events.add(new Event("e" + i, 1));
+        }
+        AllocationResult result = Allocator.firstAllocation(events,
+                manyVenues, EventOrder.GIVEN, VenueOrder.GIVEN);
+        Assert.assertNull(result.getAllocation());
+        SearchStatistics statistics = result.getStatistics();
+        Assert.assertTrue(statistics.getDeadEndHits() > 0);
+        Assert.assertTrue(statistics.getDeadEndHitRate() > 0.5);
+        Assert.assertEquals(0, statistics.getDeadEndsEvicted());
+        // the search expands each set of used venues at most once
+        Assert.assertTrue(statistics.getNodesExplored() < n * (1 << n));
+
+        // the same search with room for every event
+        manyVenues.add(new Venue("extra", n, new Traffic()));
+        result = Allocator.firstAllocation(events, manyVenues,
+                EventOrder.GIVEN, VenueOrder.GIVEN);
+        Assert.assertNotNull(result.getAllocation());
+        checkSafe(result.getAllocation());
+
+        // a search that is too small to record dead ends
+        result = Allocator.firstAllocation(events.subList(0, 2), venues,
+                EventOrder.GIVEN, VenueOrder.GIVEN);
+        Assert.assertEquals(0, result.getStatistics().getDeadEndMisses());
+        Assert.assertEquals(0, result.getStatistics().getDeadEndHitRate(),
+                0);
+    }
+
+    /**
+     * Test that LARGEST_FIRST allocates the events from largest to smallest.
+     * With no traffic and the venues tried in the order given, the first
+     * allocation gives the kth event allocated the kth venue, which reveals
+     * the order of the events.
+     */
+    @Test
+    public void testLargestFirstOrder() {
+        List<Venue> emptyVenues = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            emptyVenues.add(new Venue("v" + i, 100, new Traffic()));
+        }
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 10));
+        events.add(new Event("e1", 30));
+        events.add(new Event("e2", 20));
+
+        Map<Event, Venue> allocation = Allocator.firstAllocation(events,
+                emptyVenues, EventOrder.LARGEST_FIRST, VenueOrder.GIVEN)
+                .getAllocation();
+        Assert.assertEquals(emptyVenues.get(0), allocation.get(events.get(1)));
+        Assert.assertEquals(emptyVenues.get(1), allocation.get(events.get(2)));
+        Assert.assertEquals(emptyVenues.get(2), allocation.get(events.get(0)));
+
+        allocation = Allocator.firstAllocation(events, emptyVenues,
+                EventOrder.GIVEN, VenueOrder.GIVEN).getAllocation();
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(emptyVenues.get(i), allocation.get(events
+                    .get(i)));
+        }
+    }
+
+    /**
+     * Test that LEAST_IMPACT_FIRST tries the venues from the least corridor
+     * impact to the most. With identical events allocated in the order given,
+     * the first allocation gives the kth event the kth venue tried, which
+     * reveals the order of the venues.
+     */
+    @Test
+    public void testLeastImpactFirstOrder() {
+        // each venue loads a corridor of its own, with traffic 90, 30 and 60
+        // out of a capacity of 100 for an event of size 100
+        int[] traffic = { 90, 30, 60 };
+        List<Venue> separateVenues = new ArrayList<>();
+        for (int i = 0; i < traffic.length; i++) {
+            Corridor corridor = new Corridor(new Location("a" + i),
+                    new Location("b" + i), 100);
+            Traffic capacityTraffic = new Traffic();
+            capacityTraffic.updateTraffic(corridor, traffic[i]);
+            separateVenues.add(new Venue("v" + i, 100, capacityTraffic));
+        }
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < traffic.length; i++) {
+            events.add(new Event("e" + i, 100));
+        }
+
+        Map<Event, Venue> allocation = Allocator.firstAllocation(events,
+                separateVenues, EventOrder.GIVEN,
+                VenueOrder.LEAST_IMPACT_FIRST).getAllocation();
+        Assert.assertEquals(separateVenues.get(1), allocation.get(events.get(
+                0)));
+        Assert.assertEquals(separateVenues.get(2), allocation.get(events.get(
+                1)));
+        Assert.assertEquals(separateVenues.get(0), allocation.get(events.get(
+                2)));
+
+        allocation = Allocator.firstAllocation(events, separateVenues,
+                EventOrder.GIVEN, VenueOrder.GIVEN).getAllocation();
+        for (int i = 0; i < traffic.length; i++) {
+            Assert.assertEquals(separateVenues.get(i), allocation.get(events
+                    .get(i)));
+        }
+    }
+
+    /**
+     * Test that optimalAllocation finds the allocation with the lowest peak
+     * utilisation.
+     */
+    @Test
+    public void testOptimalAllocation() {
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 50));
+        events.add(new Event("e1", 50));
+
+        // (v0, v1) has a peak of 80/100 on corridor 0, but (v0, v2) has a
+        // peak of 50/60 on corridor 1
+        AllocationResult result = Allocator.optimalAllocation(events, venues,
+                EventOrder.GIVEN, VenueOrder.GIVEN);
+        Assert.assertEquals(0.8, result.getPeakUtilisation(), 1e-9);
+        Assert.assertEquals(new HashSet<>(venues.subList(0, 2)),
+                new HashSet<>(result.getAllocation().values()));
+        checkSafe(result.getAllocation());
+        Assert.assertTrue(result.getStatistics().getNodesExplored() > 0);
+
+        events.add(new Event("e2", 90));
+        result = Allocator.optimalAllocation(events, venues,
+                EventOrder.LARGEST_FIRST, VenueOrder.LEAST_IMPACT_FIRST);
+        Assert.assertNull(result.getAllocation());
+        Assert.assertTrue(Double.isNaN(result.getPeakUtilisation()));
+    }
+
+    /**
+     * Test that allocate with a timeout returns the best allocation when the
+     * search finishes in time, and a timed out result when it does not.
+     */
+    @Test
+    public void testAllocateWithTimeout() {
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 50));
+        events.add(new Event("e1", 50));
+
+        AllocationResult result = Allocator.allocate(events, venues, Duration
+                .ofMinutes(1));
+        Assert.assertFalse(result.isTimedOut());
+        Assert.assertEquals(0.8, result.getPeakUtilisation(), 1e-9);
+        checkSafe(result.getAllocation());
+
+        result = Allocator.allocate(events, venues, Duration.ZERO);
+        Assert.assertTrue(result.isTimedOut());
+        Assert.assertNull(result.getAllocation());
+
+        // n events that each fit at any of n venues on one corridor, which
+        // only has room for n - 1 of them: the search would take n! steps
+        int n = 30;
+        Corridor corridor = new Corridor(locations[0], locations[2], n - 1);
+        List<Venue> manyVenues = new ArrayList<>();
+        events.clear();
+        for (int i = 0; i < n; i++) {
+            Traffic traffic = new Traffic();
+            traffic.updateTraffic(corridor, 1);
+            manyVenues.add(new Venue("v" + i, 1, traffic));
+            events.add(new Event("e" + i, 1));
+        }
+        long start = System.nanoTime();
+        result = new AllocationEngine(manyVenues).allocate(events, Duration
+                .ofMillis(100));
+        long elapsed = System.nanoTime() - start;
+        Assert.assertTrue(result.isTimedOut());
+        Assert.assertNull(result.getAllocation());
+        Assert.assertTrue(result.getStatistics().getNodesExplored() > 0);
+        Assert.assertTrue(elapsed < Duration.ofSeconds(5).toNanos());
+    }
+
+    /**
+     * Test that the parallel allocator finds the same allocations as the
+     * sequential one.
+     */
+    @Test
+    public void testParallelAllocator() {
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 50));
+        events.add(new Event("e1", 50));
+        ParallelAllocator allocator = new ParallelAllocator();
+
+        Set<Map<Event, Venue>> allocations = allocator.allAllocations(events,
+                venues);
+        Assert.assertEquals(Allocator.allAllocations(events, venues),
+                allocations);
+        Assert.assertTrue(allocations.contains(allocator.allocate(events,
+                venues)));
+
+        events.add(new Event("e2", 50));
+        Assert.assertNull(allocator.allocate(events, venues));
+    }
+
+    /**
+     * Test that a parallel allocator that splits only on the first event
+     * searches the rest of the events sequentially, and finds the same
+     * allocations as the sequential one (stopping its other subtasks once one
+     * of them has found an allocation).
+     */
+    @Test
+    public void testParallelAllocatorBelowSplitDepth() {
+        // five venues sharing corridor 0, at most three of which can host an
+        // event of size 100
+        List<Venue> sharedVenues = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            sharedVenues.add(createVenue("w" + i, 100, 30, 0));
+        }
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            events.add(new Event("e" + i, 100));
+        }
+        events.add(new Event("e3", 10));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelAllocator allocator = new ParallelAllocator(pool, 1);
+            Set<Map<Event, Venue>> allocations = allocator.allAllocations(
+                    events, sharedVenues);
+            Assert.assertEquals(Allocator.allAllocations(events,
+                    sharedVenues), allocations);
+            Assert.assertEquals(5 * 4 * 3 * 2, allocations.size());
+            for (int i = 0; i < 10; i++) {
+                // the allocation found
+                Map<Event, Venue> allocation = allocator.allocate(events,
+                        sharedVenues);
+                Assert.assertTrue(allocations.contains(allocation));
+            }
+            Assert.assertTrue(allocations.contains(Allocator.allocate(events,
+                    sharedVenues)));
+
+            // four events of size 100 can each be given a venue, but would
+            // overload corridor 0, which every subtask has to find out
+            events.set(3, new Event("e3", 100));
+            Assert.assertNull(Allocator.allocate(events, sharedVenues));
+            Assert.assertNull(allocator.allocate(events, sharedVenues));
+            Assert.assertTrue(allocator.allAllocations(events, sharedVenues)
+                    .isEmpty());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test that an engine finds the same allocations as Allocator, including
+     * when it answers requests concurrently.
+     */
+    @Test
+    public void testAllocationEngine() throws Exception {
+        AllocationEngine engine = new AllocationEngine(venues);
+        Assert.assertEquals(venues, engine.getVenues());
+        // the requests: (e0, e1), which can be allocated, and (e0, e1, e2),
+        // which cannot
+        List<List<Event>> requests = new ArrayList<>();
+        for (int n = 2; n <= 3; n++) {
+            List<Event> events = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                events.add(new Event("e" + i, 50));
+            }
+            requests.add(events);
+            Assert.assertEquals(Allocator.allocate(events, venues), engine
+                    .allocate(events));
+            Assert.assertEquals(Allocator.optimalAllocation(events, venues,
+                    EventOrder.LARGEST_FIRST, VenueOrder.LEAST_IMPACT_FIRST)
+                    .getAllocation(), engine.optimalAllocation(events,
+                            EventOrder.LARGEST_FIRST,
+                            VenueOrder.LEAST_IMPACT_FIRST).getAllocation());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Map<Event, Venue>> allocations = engine.allocateAll(
+                    requests, executor);
+            Assert.assertEquals(2, allocations.size());
+            Assert.assertEquals(engine.allocate(requests.get(0)), allocations
+                    .get(0));
+            Assert.assertNull(allocations.get(1));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Test that every solver created from a configuration finds only safe
+     * allocations, and that the exact solvers agree with Allocator.
+     */
+    @Test
+    public void testSolvers() {
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 50));
+        events.add(new Event("e1", 50));
+        // the events that cannot be allocated safely
+        List<Event> unsafe = new ArrayList<>(events);
+        unsafe.add(new Event("e2", 50));
+
+        for (String name : Arrays.asList("backtracking", "optimal", "greedy",
+                "annealing")) {
+            Properties configuration = new Properties();
+            configuration.setProperty("solver", name);
+            configuration.setProperty("eventOrder", "LARGEST_FIRST");
+            AllocationSolver solver = AllocationSolvers.create(configuration);
+
+            AllocationResult result = solver.solve(events, venues);
+            Assert.assertNotNull(name, result.getAllocation());
+            Assert.assertEquals(events.size(), result.getAllocation().size());
+            checkSafe(result.getAllocation());
+            Assert.assertNull(name, solver.solve(unsafe, venues)
+                    .getAllocation());
+        }
+        Properties configuration = new Properties();
+        configuration.setProperty("solver", "optimal");
+        Assert.assertEquals(0.8, AllocationSolvers.create(configuration)
+                .solve(events, venues).getPeakUtilisation(), 1e-9);
+        Assert.assertTrue(AllocationSolvers.create(configuration).isExact());
+
+        configuration.setProperty("solver", "tabu");
+        try {
+            AllocationSolvers.create(configuration);
+            Assert.fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Unknown solver: tabu", e.getMessage());
+        }
+    }
+
+    /**
+     * Test that the greedy solver repairs its allocation when an event does
+     * not fit at any unused venue.
+     */
+    @Test
+    public void testGreedySolverRepair() {
+        // v0 is the only venue large enough for e1, but it is also where e0
+        // causes the least traffic, so e0 is allocated there first
+        List<Venue> repairVenues = new ArrayList<>();
+        repairVenues.add(createVenue("v0", 150, 15, 0));
+        repairVenues.add(createVenue("v1", 100, 0, 54));
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 100));
+        events.add(new Event("e1", 150));
+
+        AllocationResult result = new GreedySolver(EventOrder.GIVEN).solve(
+                events, repairVenues);
+        Assert.assertNotNull(result.getAllocation());
+        checkSafe(result.getAllocation());
+        Assert.assertEquals(repairVenues.get(0), result.getAllocation().get(
+                events.get(1)));
+        Assert.assertEquals(repairVenues.get(1), result.getAllocation().get(
+                events.get(0)));
+        // a node for each event, and one for the repair that succeeded
+        Assert.assertEquals(3, result.getStatistics().getNodesExplored());
+        Assert.assertEquals(0, result.getStatistics().getNodesPruned());
+
+        // allocating the largest event first needs no repair
+        result = new GreedySolver().solve(events, repairVenues);
+        Assert.assertNotNull(result.getAllocation());
+        Assert.assertEquals(2, result.getStatistics().getNodesExplored());
+    }
+
+    /**
+     * Test that the annealing solver turns an unsafe starting allocation into
+     * a safe one.
+     */
+    @Test
+    public void testAnnealingSolverRepairsOverflow() {
+        // v0 to v5 all load corridor 0, which only has room for one event
+        // there, so an allocation is only safe if it uses v6
+        List<Venue> crowdedVenues = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            crowdedVenues.add(createVenue("v" + i, 100, 80, 0));
+        }
+        crowdedVenues.add(createVenue("v6", 100, 0, 60));
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("e0", 100));
+        events.add(new Event("e1", 100));
+
+        AllocationResult result = new AnnealingSolver().solve(events,
+                crowdedVenues);
+        Assert.assertNotNull(result.getAllocation());
+        checkSafe(result.getAllocation());
+        Assert.assertTrue(result.getAllocation().containsValue(crowdedVenues
+                .get(6)));
+        // the starting allocation (which avoids v6) was unsafe, so the
+        // search took steps to reach a safe one
+        Assert.assertTrue(result.getStatistics().getNodesExplored() > 0);
+
+        // with no steps, the unsafe starting allocation is all there is
+        result = new AnnealingSolver(0, 10, 0.01, 1).solve(events,
+                crowdedVenues);
+        Assert.assertNull(result.getAllocation());
+    }
+
+    /**
+     * Checks that the given allocation is safe.
+     */
+    private void checkSafe(Map<Event, Venue> allocation) {
+        // the traffic caused by the allocation
+        Traffic traffic = new Traffic();
+        for (Event event : allocation.keySet()) {
+            Venue venue = allocation.get(event);
+            Assert.assertTrue(venue.canHost(event));
+            traffic.addTraffic(venue.getTraffic(event));
+        }
+        Assert.assertTrue(traffic.isSafe());
+        Assert.assertEquals(allocation.size(), new HashSet<>(allocation
+                .values()).size());
+    }
+
+    /**
+     * Creates a venue with the given traffic at capacity on each corridor.
+     */
+    private Venue createVenue(String name, int capacity, int traffic0,
+            int traffic1) {
+        // the traffic generated at capacity
+        Traffic traffic = new Traffic();
+        traffic.updateTraffic(corridors[0], traffic0);
+        traffic.updateTraffic(corridors[1], traffic1);
+        return new Venue(name, capacity, traffic);
+    }
+
+}
@@ -0,0 +1,59 @@
+package planner.test;
+
+import java.util.*;
+import planner.*;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Basic tests for the {@link EventReader} implementation class.
+ */
+public class EventReaderTest {
+
+    /**
+     * Test that events are read in order, that names may contain ": ", and
+     * that empty lines are ignored.
+     */
+    @Test
+    public void testRead() throws Exception {
+        String fileName = TestFiles.writeFile(new String[] { "Concert: 200",
+                "", "Brisbane Festival: Opening Night: 2000", "Market: 50" });
+        List<Event> expected = Arrays.asList(new Event("Concert", 200),
+                new Event("Brisbane Festival: Opening Night", 2000),
+                new Event("Market", 50));
+        Assert.assertEquals(expected, EventReader.read(fileName));
+    }
+
+    /**
+     * Test that format errors are reported with the number of the line on
+     * which they are found.
+     */
+    @Test
+    public void testFormatErrors() throws Exception {
+        checkFormatError("Line 2: event size missing.", "Concert: 200",
+                "Market");
+        checkFormatError("Line 1: event name cannot be the empty string.",
+                ": 200");
+        checkFormatError("Line 1: invalid event size.", "Concert: 200 ");
+        checkFormatError("Line 1: event size must be greater than zero.",
+                "Concert: 0");
+        checkFormatError("Line 3: duplicate event detected.", "Concert: 200",
+                "Concert: 100", "Concert: 200");
+    }
+
+    /**
+     * Checks that reading a file with the given lines throws a
+     * FormatException with the given message.
+     */
+    private void checkFormatError(String message, String... lines)
+            throws Exception {
+        try {
+            EventReader.read(TestFiles.writeFile(lines));
+            Assert.fail("FormatException expected");
+        } catch (FormatException e) {
+            Assert.assertEquals(message, e.getMessage());
+        }
+    }
+
+}
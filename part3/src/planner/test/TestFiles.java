@@ -0,0 +1,47 @@
+package planner.test;
+
+import java.io.*;
+
+/**
+ * Temporary files, and the contents to write to them, shared by the tests of
+ * the classes that read files.
+ */
+final class TestFiles {
+
+    // a correctly formatted venue file describing three venues
+    final static String[] MANY_VENUES = { "The Gabba", "200",
+            "l1, l2, 200: 150", "l2, l3, 100: 50", "", "Tivoli", "50", "",
+            "Suncorp Stadium", "100", "l0, l1, 100: 25", "l1, l2, 200: 70",
+            "" };
+
+    /**
+     * This class only provides static methods.
+     */
+    private TestFiles() {
+    }
+
+    /**
+     * Creates a new, empty temporary file whose name starts with prefix and
+     * ends with suffix, which is deleted when the virtual machine exits.
+     */
+    static File newFile(String prefix, String suffix) throws IOException {
+        File file = File.createTempFile(prefix, suffix);
+        file.deleteOnExit();
+        return file;
+    }
+
+    /**
+     * Writes the given lines to a new temporary text file, and returns its
+     * name.
+     */
+    static String writeFile(String[] lines) throws IOException {
+        File file = newFile("planner", ".txt");
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            for (String line : lines) {
+                out.println(line);
+            }
+        }
+        return file.getPath();
+    }
+
+}
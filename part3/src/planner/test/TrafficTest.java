@@ -0,0 +1,183 @@
+package planner.test;
+
+import planner.*;
+import java.util.*;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.Before;
+
+/**
+ * Basic tests for the {@link Traffic} implementation class.
+ */
+public class TrafficTest {
+
+    // Correct line separator for executing machine (used in toString method)
+    private final static String LINE_SEPARATOR = System.getProperty(
+            "line.separator");
+    // corridors to test with
+    private Corridor[] corridors;
+
+    /**
+     * This method is run by JUnit before each test to initialise instance
+     * variable corridors.
+     */
+    @Before
+    public void setUp() {
+        corridors = new Corridor[4];
+        corridors[0] = new Corridor(new Location("l3"), new Location("l4"),
+                100);
+        corridors[1] = new Corridor(new Location("l1"), new Location("l2"),
+                100);
+        corridors[2] = new Corridor(new Location("l0"), new Location("l1"),
+                50);
+        // equal to, but not the same object as, corridors[0]
+        corridors[3] = new Corridor(new Location("l3"), new Location("l4"),
+                100);
+    }
+
+    /**
+     * Test that equal corridors share their traffic.
+     */
+    @Test
+    public void testEqualCorridors() {
+        Traffic traffic = new Traffic();
+        traffic.updateTraffic(corridors[0], 10);
+        traffic.updateTraffic(corridors[3], 5);
+        Assert.assertEquals(15, traffic.getTraffic(corridors[0]));
+        Assert.assertEquals(15, traffic.getTraffic(corridors[3]));
+        Assert.assertEquals(1, traffic.getCorridorsWithTraffic().size());
+        Assert.assertTrue(traffic.checkInvariant());
+    }
+
+    /**
+     * Test that addTraffic merges corridors that are only in one of the two
+     * traffic records, and does not modify its parameter.
+     */
+    @Test
+    public void testAddTraffic() {
+        Traffic traffic = new Traffic();
+        traffic.updateTraffic(corridors[0], 10);
+        traffic.updateTraffic(corridors[2], 20);
+        Traffic extra = new Traffic();
+        extra.updateTraffic(corridors[1], 30);
+        extra.updateTraffic(corridors[2], 5);
+
+        traffic.addTraffic(extra);
+        Assert.assertEquals(10, traffic.getTraffic(corridors[0]));
+        Assert.assertEquals(30, traffic.getTraffic(corridors[1]));
+        Assert.assertEquals(25, traffic.getTraffic(corridors[2]));
+        Assert.assertEquals(5, extra.getTraffic(corridors[2]));
+        Assert.assertTrue(traffic.checkInvariant());
+        Assert.assertTrue(extra.checkInvariant());
+
+        // adding a traffic record to itself doubles it
+        extra.addTraffic(extra);
+        Assert.assertEquals(60, extra.getTraffic(corridors[1]));
+        Assert.assertEquals(10, extra.getTraffic(corridors[2]));
+        Assert.assertTrue(extra.checkInvariant());
+    }
+
+    /**
+     * Test that removing all of the traffic on a corridor removes the
+     * corridor, and that the corridors are ordered in the string
+     * representation.
+     */
+    @Test
+    public void testRemoveTrafficAndToString() {
+        Traffic traffic = new Traffic();
+        traffic.updateTraffic(corridors[0], 10);
+        traffic.updateTraffic(corridors[1], 20);
+        traffic.updateTraffic(corridors[2], 30);
+        traffic.updateTraffic(corridors[1], -20);
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList(corridors[0],
+                corridors[2])), traffic.getCorridorsWithTraffic());
+        Assert.assertEquals("Corridor l0 to l1 (50): 30" + LINE_SEPARATOR
+                + "Corridor l3 to l4 (100): 10" + LINE_SEPARATOR, traffic
+                        .toString());
+        Assert.assertTrue(traffic.isSafe());
+        Assert.assertTrue(traffic.checkInvariant());
+    }
+
+    /**
+     * Test that sameTraffic compares the traffic on each corridor.
+     */
+    @Test
+    public void testSameTraffic() {
+        Traffic traffic = new Traffic();
+        traffic.updateTraffic(corridors[0], 10);
+        traffic.updateTraffic(corridors[2], 60);
+        Traffic other = new Traffic(traffic);
+        Assert.assertTrue(traffic.sameTraffic(other));
+        Assert.assertFalse(traffic.isSafe());
+
+        other.updateTraffic(corridors[3], 1);
+        Assert.assertFalse(traffic.sameTraffic(other));
+        other.updateTraffic(corridors[0], -1);
+        Assert.assertTrue(traffic.sameTraffic(other));
+        Assert.assertEquals(10, traffic.getTraffic(corridors[0]));
+    }
+
+    /**
+     * Test that removeTraffic undoes addTraffic, and that isSafeWith agrees
+     * with adding the traffic to a copy and calling isSafe.
+     */
+    @Test
+    public void testRemoveTrafficAndIsSafeWith() {
+        Traffic traffic = new Traffic();
+        traffic.updateTraffic(corridors[0], 10);
+        traffic.updateTraffic(corridors[2], 40);
+        Traffic extra = new Traffic();
+        extra.updateTraffic(corridors[2], 10);
+        extra.updateTraffic(corridors[1], 30);
+        Assert.assertTrue(traffic.isSafeWith(extra));
+        extra.updateTraffic(corridors[2], 1);
+        Assert.assertFalse(traffic.isSafeWith(extra));
+        extra.updateTraffic(corridors[2], -1);
+
+        Traffic total = new Traffic(traffic);
+        total.addTraffic(extra);
+        total.removeTraffic(extra);
+        Assert.assertTrue(total.sameTraffic(traffic));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(corridors[0],
+                corridors[2])), total.getCorridorsWithTraffic());
+        Assert.assertTrue(total.checkInvariant());
+
+        // removing too much traffic leaves the traffic unchanged
+        try {
+            total.removeTraffic(extra);
+            Assert.fail("InvalidTrafficException expected");
+        } catch (InvalidTrafficException e) {
+            Assert.assertTrue(total.sameTraffic(traffic));
+        }
+        total.removeTraffic(total);
+        Assert.assertTrue(total.sameTraffic(new Traffic()));
+    }
+
+    /**
+     * Test that venues with the same traffic have the same hash code, however
+     * that traffic was built up, and that the hash code of the traffic is kept
+     * up to date as the traffic changes.
+     */
+    @Test
+    public void testVenueHashCode() {
+        Traffic traffic = new Traffic();
+        traffic.updateTraffic(corridors[0], 10);
+        traffic.updateTraffic(corridors[2], 20);
+        Venue venue = new Venue("v", 50, traffic);
+        venue.hashCode();
+
+        Traffic other = new Traffic();
+        other.updateTraffic(corridors[2], 20);
+        other.updateTraffic(corridors[1], 5);
+        Assert.assertNotEquals(venue, new Venue("v", 50, other));
+        other.updateTraffic(corridors[1], -5);
+        other.addTraffic(new Traffic());
+        other.updateTraffic(corridors[3], 10);
+        Venue otherVenue = new Venue("v", 50, other);
+        Assert.assertEquals(venue, otherVenue);
+        Assert.assertEquals(venue.hashCode(), otherVenue.hashCode());
+        Assert.assertTrue(other.checkInvariant());
+    }
+
+}
@@ -0,0 +1,179 @@
+package planner.test;
+
+import planner.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Basic tests for the {@link TrafficVectorCache} implementation class.
+ */
+public class TrafficVectorCacheTest {
+
+    // the default cache before each test, restored after it
+    private TrafficVectorCache originalCache;
+    // corridor to test with
+    private Corridor corridor;
+    // venue to test with
+    private Venue venue;
+
+    /**
+     * This method is run by JUnit before each test to initialise instance
+     * variables corridor and venue, and to remember the default cache.
+     */
+    @Before
+    public void setUp() {
+        originalCache = TrafficVectorCache.getDefault();
+        corridor = new Corridor(new Location("l0"), new Location("l1"), 1000);
+        venue = createVenue("v0");
+    }
+
+    /**
+     * This method is run by JUnit after each test to restore the default
+     * cache.
+     */
+    @After
+    public void tearDown() {
+        TrafficVectorCache.setDefault(originalCache);
+    }
+
+    /**
+     * Test that lookups of the same venue and event size are counted as
+     * misses the first time and hits after that, and that clear empties the
+     * cache.
+     */
+    @Test
+    public void testHitsAndMisses() {
+        TrafficVectorCache cache = new TrafficVectorCache(10);
+        TrafficVectorCache.setDefault(cache);
+
+        Traffic traffic = venue.getTraffic(new Event("e0", 50));
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertTrue(cache.contains(venue, 50));
+        Assert.assertEquals(50, traffic.getTraffic(corridor));
+
+        // a different event of the same size shares the entry
+        Assert.assertTrue(traffic.sameTraffic(venue.getTraffic(new Event(
+                "e1", 50))));
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.size());
+
+        // an equal venue is a different key, since venues are compared by
+        // identity
+        createVenue("v0").getTraffic(new Event("e0", 50));
+        Assert.assertEquals(2, cache.getMisses());
+        Assert.assertEquals(2, cache.size());
+
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getHits());
+        Assert.assertEquals(0, cache.getMisses());
+        Assert.assertFalse(cache.contains(venue, 50));
+    }
+
+    /**
+     * Test that a full cache evicts the least recently used entry.
+     */
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        TrafficVectorCache cache = new TrafficVectorCache(3);
+        TrafficVectorCache.setDefault(cache);
+        for (int size = 1; size <= 3; size++) {
+            venue.getTraffic(new Event("e" + size, size));
+        }
+        // size 1 becomes the most recently used, so size 2 is the least
+        venue.getTraffic(new Event("e1", 1));
+        venue.getTraffic(new Event("e4", 4));
+
+        Assert.assertEquals(3, cache.size());
+        Assert.assertTrue(cache.contains(venue, 1));
+        Assert.assertFalse(cache.contains(venue, 2));
+        Assert.assertTrue(cache.contains(venue, 3));
+        Assert.assertTrue(cache.contains(venue, 4));
+        Assert.assertEquals(4, cache.getMisses());
+        Assert.assertEquals(1, cache.getHits());
+    }
+
+    /**
+     * Test that a cache never holds more than its maximum size.
+     */
+    @Test
+    public void testSizeBound() {
+        TrafficVectorCache cache = new TrafficVectorCache(10);
+        TrafficVectorCache.setDefault(cache);
+        for (int size = 1; size <= 100; size++) {
+            venue.getTraffic(new Event("e" + size, size));
+            Assert.assertTrue(cache.size() <= cache.getMaximumSize());
+        }
+        Assert.assertEquals(10, cache.getMaximumSize());
+        Assert.assertEquals(100, cache.getMisses());
+        Assert.assertEquals(10, cache.size());
+        Assert.assertTrue(cache.contains(venue, 100));
+        Assert.assertFalse(cache.contains(venue, 90));
+    }
+
+    /**
+     * Test that lookups from many threads are all counted, and all give the
+     * right traffic.
+     */
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        TrafficVectorCache cache = new TrafficVectorCache(16);
+        TrafficVectorCache.setDefault(cache);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(executor.submit(() -> {
+                    boolean correct = true;
+                    for (int i = 0; i < 1000; i++) {
+                        // the size of the event looked up
+                        int size = 1 + i % 20;
+                        correct &= venue.getTraffic(new Event("e", size))
+                                .getTraffic(corridor) == size;
+                    }
+                    return correct;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                Assert.assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(4000, cache.getHits() + cache.getMisses());
+        Assert.assertTrue(cache.size() <= 16);
+    }
+
+    /**
+     * Test that a cache cannot be created with no room.
+     */
+    @Test
+    public void testInvalidCache() {
+        try {
+            new TrafficVectorCache(0);
+            Assert.fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Creates a venue of capacity 200 with traffic 200 on the corridor at
+     * capacity, so that an event of size s causes traffic s.
+     */
+    private Venue createVenue(String name) {
+        // the traffic generated at capacity
+        Traffic traffic = new Traffic();
+        traffic.updateTraffic(corridor, 200);
+        return new Venue(name, 200, traffic);
+    }
+
+}
@@ -0,0 +1,92 @@
+package planner.test;
+
+import java.util.*;
+import java.io.*;
+import planner.*;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Basic tests for the {@link VenueCatalogue} implementation class.
+ */
+public class VenueCatalogueTest {
+
+    /**
+     * Test that the venues opened from a catalogue are the venues that were
+     * written to it.
+     */
+    @Test
+    public void testWriteAndOpen() throws Exception {
+        List<Venue> venues = VenueReader.read(TestFiles.writeFile(
+                TestFiles.MANY_VENUES));
+        File file = TestFiles.newFile("venues", ".cat");
+        VenueCatalogue.write(venues, file.getPath());
+
+        VenueCatalogue catalogue = VenueCatalogue.open(file.getPath());
+        Assert.assertEquals(3, catalogue.size());
+        Assert.assertEquals(venues.get(2), catalogue.get(2));
+        // venues are materialised once
+        Assert.assertSame(catalogue.get(2), catalogue.get(2));
+        Assert.assertEquals(venues, catalogue);
+        Assert.assertEquals(venues.get(0).toString(), catalogue.get(0)
+                .toString());
+
+        VenueCatalogue.write(new ArrayList<Venue>(), file.getPath());
+        Assert.assertTrue(VenueCatalogue.open(file.getPath()).isEmpty());
+    }
+
+    /**
+     * Test that a catalogue that is open can still read its venues after its
+     * file has been replaced.
+     */
+    @Test
+    public void testRewriteWhileOpen() throws Exception {
+        List<Venue> venues = VenueReader.read(TestFiles.writeFile(
+                TestFiles.MANY_VENUES));
+        File file = TestFiles.newFile("venues", ".cat");
+        VenueCatalogue.write(venues, file.getPath());
+
+        VenueCatalogue catalogue = VenueCatalogue.open(file.getPath());
+        Assert.assertEquals(venues.get(0), catalogue.get(0));
+        // the rest of the venues have not been read from the file yet
+        VenueCatalogue.write(venues.subList(0, 1), file.getPath());
+        Assert.assertEquals(venues.get(1), catalogue.get(1));
+        Assert.assertEquals(venues.get(2), catalogue.get(2));
+
+        Assert.assertEquals(venues.subList(0, 1), VenueCatalogue.open(file
+                .getPath()));
+        // no temporary files are left behind
+        Assert.assertEquals(0, file.getParentFile().listFiles(
+                (directory, name) -> name.startsWith(file.getName())
+                        && name.endsWith(".tmp")).length);
+    }
+
+    /**
+     * Test that a file that is not a complete catalogue cannot be opened.
+     */
+    @Test
+    public void testInvalidCatalogue() throws Exception {
+        String fileName = TestFiles.writeFile(TestFiles.MANY_VENUES);
+        try {
+            VenueCatalogue.open(fileName);
+            Assert.fail("FormatException expected");
+        } catch (FormatException e) {
+            Assert.assertEquals("Not a venue catalogue.", e.getMessage());
+        }
+
+        File file = TestFiles.newFile("venues", ".cat");
+        VenueCatalogue.write(VenueReader.read(fileName), file.getPath());
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(30);
+        }
+        try {
+            VenueCatalogue.open(file.getPath());
+            Assert.fail("FormatException expected");
+        } catch (FormatException e) {
+            Assert.assertEquals("Venue catalogue is truncated.", e
+                    .getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,238 @@
+package planner.test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.*;
+import java.io.*;
+import planner.*;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Basic tests for the {@link VenueReader} implementation class.
+ */
+public class VenueReaderTest {
+
+    // Correct line separator for executing machine
+    private final static String LINE_SEPARATOR = System.getProperty(
+            "line.separator");
+
+    /**
+     * Test that the venues read all at once, by an iterator and by a stream
+     * are the same.
+     */
+    @Test
+    public void testReadIteratorAndStream() throws Exception {
+        String fileName = TestFiles.writeFile(TestFiles.MANY_VENUES);
+        // the venues read all at once
+        List<Venue> venues = VenueReader.read(fileName);
+        Assert.assertEquals(3, venues.size());
+        Assert.assertEquals("Tivoli (50)" + LINE_SEPARATOR, venues.get(1)
+                .toString());
+
+        // the venues read by an iterator
+        List<Venue> iterated = new ArrayList<>();
+        try (VenueReader.VenueIterator in = VenueReader.iterator(fileName)) {
+            Assert.assertEquals(0, in.getCharactersRead());
+            while (in.hasNext()) {
+                // the number of characters read before the venue
+                long before = in.getCharactersRead();
+                iterated.add(in.next());
+                Assert.assertTrue(in.getCharactersRead() > before);
+            }
+            Assert.assertEquals(new File(fileName).length(), in
+                    .getCharactersRead());
+        }
+        Assert.assertEquals(venues, iterated);
+
+        try (Stream<Venue> in = VenueReader.stream(fileName)) {
+            Assert.assertEquals(venues, in.collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Test that a stream only reads as many venues as it needs to, so that an
+     * error after those venues is not detected.
+     */
+    @Test
+    public void testStreamIsLazy() throws Exception {
+        List<String> lines = new ArrayList<>(Arrays.asList(
+                TestFiles.MANY_VENUES));
+        lines.add("Bad Venue");
+        lines.add("-1");
+        String fileName = TestFiles.writeFile(lines.toArray(new String[0]));
+
+        try (Stream<Venue> in = VenueReader.stream(fileName)) {
+            Assert.assertEquals("The Gabba", in.findFirst().get().getName());
+        }
+    }
+
+    /**
+     * Test that format errors are reported with the same message and line
+     * number by read, an iterator and a stream.
+     */
+    @Test
+    public void testFormatErrors() throws Exception {
+        List<String> lines = new ArrayList<>(Arrays.asList(
+                TestFiles.MANY_VENUES));
+        // a duplicate of the first venue, detected at its empty line
+        lines.addAll(Arrays.asList(TestFiles.MANY_VENUES).subList(0, 5));
+        String fileName = TestFiles.writeFile(lines.toArray(new String[0]));
+        String expected = "Line 18: duplicate venue detected.";
+
+        try {
+            VenueReader.read(fileName);
+            Assert.fail("FormatException expected");
+        } catch (FormatException e) {
+            Assert.assertEquals(expected, e.getMessage());
+        }
+
+        try (VenueReader.VenueIterator in = VenueReader.iterator(fileName)) {
+            for (int i = 0; i < 3; i++) {
+                in.nextVenue();
+            }
+            try {
+                in.nextVenue();
+                Assert.fail("FormatException expected");
+            } catch (FormatException e) {
+                Assert.assertEquals(expected, e.getMessage());
+            }
+            // the file is closed after an error
+            Assert.assertFalse(in.hasNext());
+        }
+
+        try (Stream<Venue> in = VenueReader.stream(fileName)) {
+            in.count();
+            Assert.fail("UncheckedFormatException expected");
+        } catch (UncheckedFormatException e) {
+            Assert.assertEquals(expected, e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Test that equal corridors read for different venues are the same
+     * object.
+     */
+    @Test
+    public void testCorridorsAreShared() throws Exception {
+        List<Venue> venues = VenueReader.read(TestFiles.writeFile(
+                TestFiles.MANY_VENUES));
+        // the corridor "l1, l2, 200" from the first and last venue
+        Corridor first = null;
+        Corridor last = null;
+        for (Corridor c : venues.get(0).getTraffic(new Event("e", 200))
+                .getCorridorsWithTraffic()) {
+            if (c.getStart().getName().equals("l1")) {
+                first = c;
+            }
+        }
+        for (Corridor c : venues.get(2).getTraffic(new Event("e", 100))
+                .getCorridorsWithTraffic()) {
+            if (c.getStart().getName().equals("l1")) {
+                last = c;
+            }
+        }
+        Assert.assertEquals(new Corridor(new Location("l1"), new Location(
+                "l2"), 200), first);
+        Assert.assertSame(first, last);
+        Assert.assertSame(first.getEnd(), last.getEnd());
+    }
+
+    /**
+     * Test that the parallel reader reads the same venues as read, and
+     * reports the same format errors, however small its chunks are.
+     */
+    @Test
+    public void testParallelRead() throws Exception {
+        String fileName = TestFiles.writeFile(TestFiles.MANY_VENUES);
+        List<String> lines = new ArrayList<>(Arrays.asList(
+                TestFiles.MANY_VENUES));
+        lines.addAll(Arrays.asList(TestFiles.MANY_VENUES).subList(0, 5));
+        String duplicateFileName = TestFiles.writeFile(lines.toArray(
+                new String[0]));
+        lines.set(11, "l0, l1, 100: 125");
+        String badFileName = TestFiles.writeFile(lines.toArray(new String[0]));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int chunkLength = 1; chunkLength < 200; chunkLength += 7) {
+                ParallelVenueReader reader = new ParallelVenueReader(pool,
+                        chunkLength);
+                Assert.assertEquals(VenueReader.read(fileName), reader.read(
+                        fileName));
+                try {
+                    reader.read(duplicateFileName);
+                    Assert.fail("FormatException expected");
+                } catch (FormatException e) {
+                    Assert.assertEquals("Line 18: duplicate venue detected.",
+                            e.getMessage());
+                }
+                try {
+                    reader.read(badFileName);
+                    Assert.fail("FormatException expected");
+                } catch (FormatException e) {
+                    Assert.assertEquals(
+                            "Line 12: traffic exceeds the corridor capacity.",
+                            e.getMessage());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test that traffic lines that are not in their simple form ("START, END,
+     * CAPACITY: AMOUNT", with single spaces and at most nine digits in each
+     * number) are read, or rejected, with exactly the messages they always
+     * were.
+     */
+    @Test
+    public void testTrafficLinesNotInSimpleForm() throws Exception {
+        // each traffic line, and the message it is rejected with (or null if
+        // it is valid)
+        String[][] cases = { { "l0,l1, 100: 5", "invalid corridor." },
+                { "l0, l1, 100:5", "invalid corridor." },
+                { "l0, , 100: 5", "invalid corridor." },
+                { "l0, l0, 100: 5", "invalid corridor." },
+                { "l0, l1, 2147483648: 5", "invalid corridor." },
+                { "l0, l1, 100: 5 ",
+                        "traffic is missing or incorrectly formatted." },
+                { "l0, l1, 100: 1234567890",
+                        "traffic exceeds the corridor capacity." },
+                { "l0, l1, 100: -5",
+                        "traffic is less than or equal to zero." },
+                { "l0, l1, +100: 5", null }, { "l0, l1, 0100: 5", null } };
+        Corridor corridor = new Corridor(new Location("l0"), new Location(
+                "l1"), 100);
+
+        ParallelVenueReader parallelReader = new ParallelVenueReader(
+                ForkJoinPool.commonPool(), 8);
+        for (String[] c : cases) {
+            String fileName = TestFiles.writeFile(new String[] { "Venue",
+                    "100", c[0], "" });
+            if (c[1] == null) {
+                // the venues read
+                List<Venue> venues = VenueReader.read(fileName);
+                Assert.assertEquals(5, venues.get(0).getTraffic(new Event(
+                        "e", 100)).getTraffic(corridor));
+                Assert.assertEquals(venues, parallelReader.read(fileName));
+                continue;
+            }
+            try {
+                VenueReader.read(fileName);
+                Assert.fail("FormatException expected for " + c[0]);
+            } catch (FormatException e) {
+                Assert.assertEquals("Line 3: " + c[1], e.getMessage());
+            }
+            try {
+                parallelReader.read(fileName);
+                Assert.fail("FormatException expected for " + c[0]);
+            } catch (FormatException e) {
+                Assert.assertEquals("Line 3: " + c[1], e.getMessage());
+            }
+        }
+    }
+
+}